@@ -12,6 +12,11 @@ variable "artifact_path" {
   type        = string
 }
 
+variable "fast_startup_path" {
+  description = "Absolute path to the fast-startup layout from `gradle -PfastStartup fastStartup` (AOT-processed application.jar, lib/ and the AppCDS archive)"
+  type        = string
+}
+
 variable "ami_name_prefix" {
   description = "Prefix for the AMI name"
   type        = string
@@ -43,12 +48,12 @@ source "amazon-ebs" "ubuntu" {
 build {
   sources = ["source.amazon-ebs.ubuntu"]
 
-  # 1. Install Java 17, unzip, curl, jq, and AWS CLI
+  # 1. Install Java 21, unzip, curl, jq, and AWS CLI
   provisioner "shell" {
     inline = [
       "sudo apt-get update",
       "sudo apt-get upgrade -y",
-      "sudo apt-get install -y openjdk-17-jdk unzip curl jq",
+      "sudo apt-get install -y openjdk-21-jdk unzip curl jq",
 
       # Install AWS CLI v2
       "curl \"https://awscli.amazonaws.com/awscli-exe-linux-x86_64.zip\" -o \"awscliv2.zip\"",
@@ -85,7 +90,7 @@ build {
   provisioner "shell" {
     inline = [
       # Create a systemd service to run the application
-      "sudo bash -c 'cat <<EOF > /etc/systemd/system/webapp.service\n[Unit]\nDescription=CSYE6225 WebApp\nAfter=network.target\n\n[Service]\nUser=csye6225\nEnvironmentFile=/etc/environment\nExecStart=/usr/bin/java -jar /opt/myapp/webapp.jar\nWorkingDirectory=/opt/myapp\nRestart=always\n\n[Install]\nWantedBy=multi-user.target\nEOF'",
+      "sudo bash -c 'cat <<EOF > /etc/systemd/system/webapp.service\n[Unit]\nDescription=CSYE6225 WebApp\nAfter=network.target\n\n[Service]\nUser=csye6225\nEnvironmentFile=/etc/environment\nExecStart=/usr/bin/java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar application.jar\nWorkingDirectory=/opt/myapp/fast-startup\nRestart=always\n\n[Install]\nWantedBy=multi-user.target\nEOF'",
 
       # Reload systemd and enable the service
       "sudo systemctl daemon-reload",
@@ -101,7 +106,33 @@ build {
     ]
   }
 
-  # 5. Install and Configure CloudWatch Agent
+  # 5. Copy the fast-startup layout the service runs from (the plain JAR above stays as a fallback)
+  provisioner "shell" {
+    inline = ["mkdir -p /tmp/fast-startup"]
+  }
+
+  provisioner "file" {
+    source      = "${var.fast_startup_path}/"
+    destination = "/tmp/fast-startup"
+  }
+
+  # An AppCDS archive only maps into the exact JDK build that recorded it: start once with -Xshare:on
+  # (which fails on a mismatch) and otherwise record it again with this image's JDK
+  provisioner "shell" {
+    inline = [
+      "sudo mv /tmp/fast-startup /opt/myapp/fast-startup",
+      "sudo chown -R csye6225:csye6225 /opt/myapp/fast-startup",
+      "TRAINING='-Dspring.context.exit=onRefresh -Dspring.aot.enabled=true -Dspring.profiles.active=cds-training -Daws.region=us-east-1'",
+      "if ! sudo -u csye6225 sh -c \"cd /opt/myapp/fast-startup && java -XX:SharedArchiveFile=application.jsa -Xshare:on $TRAINING -jar application.jar\" > /tmp/cds-check.log 2>&1; then",
+      "  echo 'AppCDS archive does not match this JDK; recording it again'",
+      "  sudo rm -f /opt/myapp/fast-startup/application.jsa",
+      "  sudo -u csye6225 sh -c \"cd /opt/myapp/fast-startup && java -XX:ArchiveClassesAtExit=application.jsa -Xlog:cds=error $TRAINING -jar application.jar\"",
+      "fi",
+      "sudo rm -f /var/log/myapp/application.log"
+    ]
+  }
+
+  # 6. Install and Configure CloudWatch Agent
   provisioner "shell" {
     inline = [
       # Download and install the CloudWatch Agent
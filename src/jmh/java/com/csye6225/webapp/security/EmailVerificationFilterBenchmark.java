@@ -0,0 +1,65 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.repository.UserCredentialsView;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pass of EmailVerificationFilter for an authenticated, verified user.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailVerificationFilterBenchmark {
+
+    private EmailVerificationFilter filter;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        filter = new EmailVerificationFilter();
+        request = new MockHttpServletRequest("GET", "/v1/user/self");
+
+        AuthenticatedUser principal = new AuthenticatedUser(new UserCredentialsView(
+                1L, "jane.doe@example.com", "$2a$10$abcdefghijklmnopqrstuv", true, LocalDateTime.of(2024, 11, 2, 8, 30)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public int filterPass() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // OncePerRequestFilter marks the request as filtered, so clear it for each pass
+        request.removeAttribute(filter.getClass().getName() + ".FILTERED");
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
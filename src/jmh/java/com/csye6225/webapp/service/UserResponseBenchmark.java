@@ -0,0 +1,66 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.dto.UserResponseDto;
+import com.csye6225.webapp.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response building on GET /v1/user/self: entity to DTO mapping and Jackson serialization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseBenchmark {
+
+    private UserService userService;
+    private ObjectMapper objectMapper;
+    private User user;
+    private UserResponseDto userResponseDto;
+
+    @Setup
+    public void setUp() {
+        userService = new UserService();
+        objectMapper = new ObjectMapper();
+
+        user = new User();
+        user.setEmail("jane.doe@example.com");
+        user.setFirstName("Jane");
+        user.setLastName("Doe");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+        user.setAccountCreated(LocalDateTime.of(2024, 10, 1, 12, 0));
+        user.setAccountUpdated(LocalDateTime.of(2024, 11, 2, 8, 30));
+        userResponseDto = userService.mapToUserResponseDto(user);
+    }
+
+    @Benchmark
+    public UserResponseDto mapToUserResponseDto() {
+        return userService.mapToUserResponseDto(user);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userResponseDto);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userService.mapToUserResponseDto(user));
+    }
+}
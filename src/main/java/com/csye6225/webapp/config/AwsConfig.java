@@ -1,20 +1,135 @@
 package com.csye6225.webapp.config;
 
-import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
-import com.amazonaws.regions.Regions;
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.csye6225.webapp.metrics.AwsSdkMetricPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
 
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * S3 and SNS run on the v2 async SDK over one shared Netty HTTP client, so a single connection
+ * pool with explicit limits bounds all AWS traffic and no thread is held per in-flight call.
+ */
 @Configuration
 public class AwsConfig {
 
+    // Open connections across S3 and SNS; requests beyond this wait for a connection
+    @Value("${aws.http.max-concurrency:50}")
+    private int maxConcurrency;
+
+    // Waiting requests beyond this fail fast instead of queueing without bound
+    @Value("${aws.http.max-pending-acquires:1000}")
+    private int maxPendingAcquires;
+
+    @Value("${aws.http.connection-timeout-ms:2000}")
+    private long connectionTimeoutMillis;
+
+    @Value("${aws.http.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${aws.http.read-timeout-ms:30000}")
+    private long readTimeoutMillis;
+
+    @Value("${aws.http.idle-timeout-ms:60000}")
+    private long idleTimeoutMillis;
+
+    // Whole call including retries
+    @Value("${aws.api-call-timeout-ms:30000}")
+    private long apiCallTimeoutMillis;
+
+    // Optional S3-compatible endpoint (local stand-ins, load tests); empty means real AWS
+    @Value("${aws.s3.endpoint:}")
+    private String s3Endpoint;
+
+    // Uploads above the threshold are sent by the client as parallel multipart parts
+    @Value("${aws.s3.upload.multipart-threshold:8388608}")
+    private long multipartThreshold;
+
+    @Value("${aws.s3.upload.part-size:5242880}")
+    private long partSize;
+
     @Bean
-    public AmazonS3 amazonS3() {
-        return AmazonS3ClientBuilder.standard()
-                .withRegion(Regions.US_EAST_1)
-                .withCredentials(new DefaultAWSCredentialsProviderChain())
+    public SdkAsyncHttpClient awsHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMillis))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .writeTimeout(Duration.ofMillis(readTimeoutMillis))
+                .connectionMaxIdleTime(Duration.ofMillis(idleTimeoutMillis))
+                .tcpKeepAlive(true)
                 .build();
     }
+
+    @Bean
+    public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient awsHttpClient, AwsSdkMetricPublisher metricPublisher) {
+        var builder = S3AsyncClient.builder()
+                .httpClient(awsHttpClient)
+                .region(Region.US_EAST_1)
+                .credentialsProvider(s3Credentials())
+                .overrideConfiguration(overrideConfiguration(metricPublisher))
+                .multipartEnabled(true)
+                .multipartConfiguration(MultipartConfiguration.builder()
+                        .thresholdInBytes(multipartThreshold)
+                        .minimumPartSizeInBytes(partSize)
+                        .build());
+        if (!s3Endpoint.isEmpty()) {
+            builder.endpointOverride(URI.create(s3Endpoint)).forcePathStyle(true);
+        }
+        return builder.build();
+    }
+
+    // Signing is local, so the presigner needs no HTTP client. It cannot sign anonymously, so
+    // stand-in endpoints get placeholder keys they do not check
+    @Bean
+    public S3Presigner s3Presigner() {
+        var builder = S3Presigner.builder().region(Region.US_EAST_1);
+        if (s3Endpoint.isEmpty()) {
+            return builder.credentialsProvider(DefaultCredentialsProvider.create()).build();
+        }
+        return builder
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("anonymous", "anonymous")))
+                .endpointOverride(URI.create(s3Endpoint))
+                .serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build())
+                .build();
+    }
+
+    // One long-lived client shared by the outbox dispatcher; closed on shutdown
+    @Bean
+    @ConditionalOnProperty(name = "messaging.publisher", havingValue = "sns", matchIfMissing = true)
+    public SnsAsyncClient snsAsyncClient(SdkAsyncHttpClient awsHttpClient, AwsSdkMetricPublisher metricPublisher) {
+        return SnsAsyncClient.builder()
+                .httpClient(awsHttpClient)
+                .overrideConfiguration(overrideConfiguration(metricPublisher))
+                .build();
+    }
+
+    private ClientOverrideConfiguration overrideConfiguration(AwsSdkMetricPublisher metricPublisher) {
+        return ClientOverrideConfiguration.builder()
+                .apiCallTimeout(Duration.ofMillis(apiCallTimeoutMillis))
+                .addMetricPublisher(metricPublisher)
+                .build();
+    }
+
+    private AwsCredentialsProvider s3Credentials() {
+        return s3Endpoint.isEmpty() ? DefaultCredentialsProvider.create() : AnonymousCredentialsProvider.create();
+    }
 }
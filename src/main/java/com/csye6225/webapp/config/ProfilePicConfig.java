@@ -0,0 +1,23 @@
+package com.csye6225.webapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ProfilePicConfig {
+
+    // Decode/resize/encode is CPU-bound and holds a decoded raster per task, so one thread per core
+    @Bean
+    public ThreadPoolTaskExecutor imageProcessingExecutor(@Value("${profile-pic.processing.threads:0}") int threads,
+                                                          @Value("${profile-pic.processing.queue-capacity:20}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-processing-");
+        return executor;
+    }
+}
@@ -0,0 +1,62 @@
+package com.csye6225.webapp.config;
+
+import com.csye6225.webapp.security.RateLimitFilter;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    // Route classes in match order; health and metrics endpoints are never limited
+    @Bean
+    public RateLimitFilter rateLimitFilter(StatsDClient statsDClient,
+                                           @Value("${rate-limit.upload.rate-per-second:1}") double uploadRate,
+                                           @Value("${rate-limit.upload.burst:5}") int uploadBurst,
+                                           @Value("${rate-limit.upload.max-concurrent:20}") int uploadMaxConcurrent,
+                                           @Value("${rate-limit.signup.rate-per-second:2}") double signupRate,
+                                           @Value("${rate-limit.signup.burst:10}") int signupBurst,
+                                           @Value("${rate-limit.signup.max-concurrent:20}") int signupMaxConcurrent,
+                                           @Value("${rate-limit.api.rate-per-second:20}") double apiRate,
+                                           @Value("${rate-limit.api.burst:40}") int apiBurst,
+                                           @Value("${rate-limit.api.max-concurrent:200}") int apiMaxConcurrent,
+                                           @Value("${rate-limit.auth-failure.rate-per-second:0.2}") double authFailureRate,
+                                           @Value("${rate-limit.auth-failure.burst:10}") int authFailureBurst) {
+        List<RateLimitFilter.RouteLimit> routeLimits = new ArrayList<>();
+        if (enabled) {
+            routeLimits.add(new RateLimitFilter.RouteLimit("upload",
+                    new AntPathRequestMatcher("/v1/user/self/pic", HttpMethod.POST.name()),
+                    uploadRate, uploadBurst, uploadMaxConcurrent));
+            routeLimits.add(new RateLimitFilter.RouteLimit("signup", new OrRequestMatcher(
+                    new AntPathRequestMatcher("/v1/user", HttpMethod.POST.name()),
+                    new AntPathRequestMatcher("/v1/user/bulk", HttpMethod.POST.name())),
+                    signupRate, signupBurst, signupMaxConcurrent));
+            routeLimits.add(new RateLimitFilter.RouteLimit("api", new AntPathRequestMatcher("/v1/**"),
+                    apiRate, apiBurst, apiMaxConcurrent));
+        }
+        // Failed credentials per client address, across all routes
+        RateLimitFilter.RouteLimit authFailureLimit = enabled ? new RateLimitFilter.RouteLimit("auth_failure",
+                AnyRequestMatcher.INSTANCE, authFailureRate, authFailureBurst, Integer.MAX_VALUE) : null;
+        return new RateLimitFilter(statsDClient, routeLimits, authFailureLimit);
+    }
+
+    // Runs inside the security filter chain only, around authentication
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+}
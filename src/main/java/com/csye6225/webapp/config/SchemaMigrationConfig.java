@@ -0,0 +1,37 @@
+package com.csye6225.webapp.config;
+
+import org.flywaydb.core.api.output.MigrateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The schema is owned by the versioned scripts in db/migration; Hibernate only validates it.
+ * Flyway applies pending scripts before the EntityManagerFactory starts, under a database lock,
+ * so the first instance of a deploy migrates and the others find nothing pending.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrationConfig.class);
+
+    // A runtime switch rather than spring.flyway.enabled, which the fast-startup build freezes
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(@Value("${db.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (!migrateOnStartup) {
+                logger.info("Schema migrations skipped (db.migrate-on-startup=false)");
+                return;
+            }
+            long start = System.nanoTime();
+            MigrateResult result = flyway.migrate();
+            // Instances after the first of a deploy only read the history table here
+            String version = result.targetSchemaVersion != null ? result.targetSchemaVersion : result.initialSchemaVersion;
+            logger.info("Schema at version {}, {} migration(s) applied in {} ms", version,
+                    result.migrationsExecuted, (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+}
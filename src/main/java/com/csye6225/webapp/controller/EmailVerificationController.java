@@ -22,13 +22,14 @@ public class EmailVerificationController {
 
     @GetMapping("/verify")
     public ResponseEntity<String> verifyEmail(@RequestParam String token) {
-        logger.info("Received email verification request for token: {}", token);
+        // The token is a bearer credential, so it is never logged
+        logger.info("Received email verification request");
         try {
             String message = emailVerificationService.verifyEmail(token);
-            logger.info("Email verification successful for token: {}", token);
+            logger.info("Email verification successful");
             return ResponseEntity.ok(message);
         } catch (IllegalArgumentException e) {
-            logger.error("Error verifying email for token {}: {}", token, e.getMessage());
+            logger.error("Error verifying email: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
@@ -1,5 +1,6 @@
 package com.csye6225.webapp.controller;
 
+import com.csye6225.webapp.metrics.Timed;
 import com.csye6225.webapp.service.HealthCheckService;
 import com.timgroup.statsd.StatsDClient;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,24 +24,33 @@ public class HealthCheckController {
 
     @GetMapping
     @RequestMapping(method = RequestMethod.GET)
+    @Timed("api.healthz")
     public ResponseEntity<Void> healthCheck(HttpServletRequest request) {
-        // Start the timer for this API
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.healthz.call_count");
 
         if (request.getContentLength() > 0 || request.getQueryString() != null) {
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("api.healthz.time", duration);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
-        boolean isDbConnected = healthCheckService.isDatabaseConnected();
+        // Answered from the state cached by the background prober, no query per poll
+        return status(healthCheckService.isDatabaseUp());
+    }
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.healthz.time", duration);
+    // Liveness: the process is up and serving requests
+    @GetMapping("/live")
+    public ResponseEntity<Void> liveness() {
+        return status(true);
+    }
+
+    // Readiness: dependencies are up and the connection pool is not saturated
+    @GetMapping("/ready")
+    @Timed("api.healthz.ready")
+    public ResponseEntity<Void> readiness() {
+        return status(healthCheckService.isReady());
+    }
 
-        if (isDbConnected) {
+    private ResponseEntity<Void> status(boolean healthy) {
+        if (healthy) {
             return ResponseEntity.ok().header("Cache-Control", "no-cache").build();
         } else {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
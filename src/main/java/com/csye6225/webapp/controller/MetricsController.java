@@ -0,0 +1,47 @@
+package com.csye6225.webapp.controller;
+
+import com.csye6225.webapp.metrics.LatencyHistogram;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/metrics")
+@ConditionalOnProperty(name = "metrics.endpoint.enabled", havingValue = "true")
+public class MetricsController {
+
+    @Autowired
+    private LatencyRegistry latencyRegistry;
+
+    // Prometheus-style text exposition: quantiles over the last export interval, running count and sum
+    @GetMapping(produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> metrics() {
+        StringBuilder body = new StringBuilder();
+        body.append("# TYPE webapp_latency_seconds summary\n");
+        for (Map.Entry<String, LatencyRegistry.Exported> entry : latencyRegistry.exported().entrySet()) {
+            String name = entry.getKey();
+            LatencyHistogram.Snapshot snapshot = entry.getValue().interval();
+            appendQuantile(body, name, "0.5", snapshot.p50Nanos());
+            appendQuantile(body, name, "0.95", snapshot.p95Nanos());
+            appendQuantile(body, name, "0.99", snapshot.p99Nanos());
+            appendQuantile(body, name, "1", snapshot.maxNanos());
+            body.append("webapp_latency_seconds_sum{name=\"").append(name).append("\"} ")
+                    .append(entry.getValue().totalSumNanos() / 1e9).append('\n');
+            body.append("webapp_latency_seconds_count{name=\"").append(name).append("\"} ")
+                    .append(entry.getValue().totalCount()).append('\n');
+        }
+        return ResponseEntity.ok().header("Cache-Control", "no-cache").body(body.toString());
+    }
+
+    private void appendQuantile(StringBuilder body, String name, String quantile, long nanos) {
+        body.append("webapp_latency_seconds{name=\"").append(name).append("\",quantile=\"").append(quantile)
+                .append("\"} ").append(nanos / 1e9).append('\n');
+    }
+}
@@ -1,23 +1,36 @@
 package com.csye6225.webapp.controller;
 
+import com.csye6225.webapp.dto.BulkUserResponseDto;
 import com.csye6225.webapp.dto.ProfilePicResponseDto;
+import com.csye6225.webapp.dto.UserPatchRequestDto;
+import com.csye6225.webapp.dto.UserPatchResponseDto;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
+import com.csye6225.webapp.metrics.Timed;
+import com.csye6225.webapp.security.AuthenticatedUser;
+import com.csye6225.webapp.service.ProfilePicSize;
+import com.csye6225.webapp.service.UserProvisioningService;
 import com.csye6225.webapp.service.UserService;
 import com.timgroup.statsd.StatsDClient;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1/user")
@@ -26,52 +39,80 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserProvisioningService userProvisioningService;
+
     @Autowired
     private StatsDClient statsDClient;
 
+    @Value("${user.bulk.enabled:false}")
+    private boolean bulkEnabled;
+
+    @Value("${user.bulk.max-batch-size:1000}")
+    private int maxBulkBatchSize = 1000;
+
+    @Value("${spring.servlet.multipart.max-file-size:10MB}")
+    private DataSize maxPicSize;
+
     // Get Authenticated User Details
     @GetMapping("/self")
-    public ResponseEntity<?> getUserDetails(HttpServletRequest request) {
-        // Start the timer for this API
-        long start = System.currentTimeMillis();
-
+    @Timed("api.user.getUserDetails")
+    public ResponseEntity<?> getUserDetails(HttpServletRequest request, WebRequest webRequest) {
         statsDClient.incrementCounter("api.user.getUserDetails.call_count");
 
         if (request.getContentLength() > 0 || request.getQueryString() != null) {
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("api.getUserDetails.time", duration);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
 
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        String userEmail = userDetails.getUsername();
-        UserResponseDto userResponseDto = userService.getUserByEmail(userEmail);
-
-        // Calculate and record execution time
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.getUserDetails.time", duration);
+        UserResponseDto userResponseDto;
+        if (userDetails instanceof AuthenticatedUser principal) {
+            // Conditional GET: a matching If-None-Match gets a 304 before any DTO is built
+            if (webRequest.checkNotModified(userService.userEtag(principal))) {
+                statsDClient.incrementCounter("api.user.getUserDetails.not_modified");
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+            // Reuse the user loaded during authentication
+            userResponseDto = userService.getUserDetails(principal);
+        } else {
+            userResponseDto = userService.getUserByEmail(userDetails.getUsername());
+        }
 
-        return new ResponseEntity<>(userResponseDto, HttpStatus.OK);
+        // Overrides Spring Security's no-store default so clients keep the body and revalidate with the ETag
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(userResponseDto);
     }
 
     @PostMapping
+    @Timed("api.user.createUser")
     public ResponseEntity<?> createUser(@Valid @RequestBody UserRequestDto userRequestDto) {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.createUser.call_count");
 
         UserResponseDto createdUser = userService.createUser(userRequestDto);
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.createUser.time", duration);
-
         return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
     }
 
+    // Bulk provisioning: per-row results, so one bad row does not fail the batch
+    @PostMapping("/bulk")
+    @Timed("api.user.bulkCreateUsers")
+    public ResponseEntity<?> bulkCreateUsers(@RequestBody List<UserRequestDto> userRequestDtos) {
+        statsDClient.incrementCounter("api.user.bulkCreateUsers.call_count");
+
+        if (!bulkEnabled) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (userRequestDtos.isEmpty() || userRequestDtos.size() > maxBulkBatchSize) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        BulkUserResponseDto response = userProvisioningService.createUsers(userRequestDtos);
+
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
     @PutMapping("/self")
+    @Timed("api.user.updateUser")
     public ResponseEntity<?> updateUser(@Valid @RequestBody UserUpdateRequestDto userUpdateRequestDto) {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.updateUser.call_count");
 
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -83,65 +124,78 @@ public class UserController {
 
         userService.updateUser(userEmail, userUpdateRequestDto);
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.updateUser.time", duration);
-
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    // Partial update: only the supplied fields change, in one UPDATE statement
+    @PatchMapping("/self")
+    @Timed("api.user.patchUser")
+    public ResponseEntity<?> patchUser(@Valid @RequestBody UserPatchRequestDto userPatchRequestDto) {
+        statsDClient.incrementCounter("api.user.patchUser.call_count");
+
+        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String userEmail = userDetails.getUsername();
+
+        if (!userPatchRequestDto.hasChanges()
+                || (userPatchRequestDto.getEmail() != null && !userEmail.equals(userPatchRequestDto.getEmail()))) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        LocalDateTime accountUpdated = userService.patchUser(userEmail, userPatchRequestDto);
+        if (accountUpdated == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (userDetails instanceof AuthenticatedUser principal) {
+            // Clients can replace their cached ETag without re-reading the profile
+            response.eTag(userService.userEtag(principal.getId(), accountUpdated));
+        }
+        return response.body(new UserPatchResponseDto(accountUpdated.toString()));
+    }
+
     @RequestMapping(value = "/self", method = RequestMethod.HEAD)
+    @Timed("api.user.handleHead")
     public ResponseEntity<?> handleHead() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleHead.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleHead.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @RequestMapping(value = "/self", method = RequestMethod.OPTIONS)
+    @Timed("api.user.handleOptions")
     public ResponseEntity<?> handleOptions() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleOptions.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleOptions.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @RequestMapping(method = RequestMethod.OPTIONS)
+    @Timed("api.user.handleOptionsBase")
     public ResponseEntity<?> handleOptionsBase() {
-        long start = System.currentTimeMillis();
-
         statsDClient.incrementCounter("api.user.handleOptionsBase.call_count");
 
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.user.handleOptionsBase.time", duration);
-
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @GetMapping("/self/pic")
-    public ResponseEntity<?> getProfilePic(HttpServletRequest request) {
-        long start = System.currentTimeMillis();
+    @Timed("api.user.getProfilePic")
+    public ResponseEntity<?> getProfilePic(HttpServletRequest request, WebRequest webRequest) {
         statsDClient.incrementCounter("api.user.getProfilePic.call_count");
-        if (request.getContentLength() > 0 || request.getQueryString() != null) {
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("api.getProfilePic.time", duration);
+        // ?size=original|medium|thumbnail is the only query parameter accepted
+        String sizeParam = request.getParameter("size");
+        ProfilePicSize size = sizeParam == null ? ProfilePicSize.ORIGINAL : ProfilePicSize.fromParam(sizeParam);
+        if (request.getContentLength() > 0 || size == null
+                || request.getParameterMap().size() > (sizeParam == null ? 0 : 1)) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String userEmail = userDetails.getUsername();
-        long duration = System.currentTimeMillis() - start;
-        statsDClient.recordExecutionTime("api.getProfilePic.time", duration);
-        return userService.getProfilePic(userEmail);
+        return userService.getProfilePic(userEmail, size, webRequest);
     }
 
     @PostMapping(value = "/self/pic", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed("api.user.addOrUpdateProfilePic")
     public ResponseEntity<ProfilePicResponseDto> addOrUpdateProfilePic(@RequestParam("profilePic") MultipartFile profilePic) throws IOException {
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String userEmail = userDetails.getUsername();
@@ -151,7 +205,33 @@ public class UserController {
         return userService.uploadProfilePic(userEmail, profilePic);
     }
 
+    // Raw image body upload: skips multipart temp-file spooling, but is not streamed to S3; the body is read
+    // once into a buffer bounded by the size limit and the number of uploads in progress (see ProfilePicStore)
+    @PostMapping(value = "/self/pic", consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE}, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Timed("api.user.streamProfilePic")
+    public ResponseEntity<ProfilePicResponseDto> streamProfilePic(HttpServletRequest request) throws IOException {
+        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        String userEmail = userDetails.getUsername();
+
+        statsDClient.incrementCounter("api.user.streamProfilePic.call_count");
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength <= 0) {
+            return ResponseEntity.status(HttpStatus.LENGTH_REQUIRED).build();
+        }
+        if (contentLength > maxPicSize.toBytes()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        String contentType = MediaType.parseMediaType(request.getContentType()).getSubtype().equals("png")
+                ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        String fileName = contentType.equals(MediaType.IMAGE_PNG_VALUE) ? "profile-pic.png" : "profile-pic.jpg";
+
+        return userService.uploadProfilePic(userEmail, request.getInputStream(), contentLength, contentType, fileName);
+    }
+
     @DeleteMapping("/self/pic")
+    @Timed("api.user.deleteProfilePic")
     public ResponseEntity<?> deleteProfilePic() {
         UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String userEmail = userDetails.getUsername();
@@ -162,11 +242,13 @@ public class UserController {
     }
 
     @RequestMapping(value = "/self/pic", method = RequestMethod.OPTIONS)
+    @Timed("api.user.handleOptionsUserPicSelf")
     public ResponseEntity<?> handleOptionsUserPicSelf() {
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
 
     @RequestMapping(value = "/self/pic", method = RequestMethod.HEAD)
+    @Timed("api.user.handleHeadUserPicSelf")
     public ResponseEntity<?> handleHeadUserPicSelf() {
         return new ResponseEntity<>(HttpStatus.METHOD_NOT_ALLOWED);
     }
@@ -0,0 +1,58 @@
+package com.csye6225.webapp.dto;
+
+import java.util.List;
+
+public class BulkUserResponseDto {
+
+    private int created;
+    private int conflicts;
+    private int invalid;
+    private List<BulkUserResultDto> results;
+
+    public BulkUserResponseDto() {
+    }
+
+    public BulkUserResponseDto(List<BulkUserResultDto> results) {
+        this.results = results;
+        for (BulkUserResultDto result : results) {
+            switch (result.getStatus()) {
+                case BulkUserResultDto.STATUS_CREATED -> created++;
+                case BulkUserResultDto.STATUS_CONFLICT -> conflicts++;
+                default -> invalid++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(int conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public List<BulkUserResultDto> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BulkUserResultDto> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,66 @@
+package com.csye6225.webapp.dto;
+
+public class BulkUserResultDto {
+
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_CONFLICT = "CONFLICT";
+    public static final String STATUS_INVALID = "INVALID";
+
+    private int index;
+    private String email;
+    private String status;
+    private Long id;
+    private String message;
+
+    public BulkUserResultDto() {
+    }
+
+    public BulkUserResultDto(int index, String email, String status, Long id, String message) {
+        this.index = index;
+        this.email = email;
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.dto;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+
+// Every field is optional; only the ones present are changed
+public class UserPatchRequestDto {
+
+    @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
+    private String firstName;
+
+    @Size(min = 2, max = 50, message = "Last name must be between 2 and 50 characters")
+    private String lastName;
+
+    @Size(min = 8, message = "Password must be at least 8 characters long")
+    private String password;
+
+    // Accepted only if it matches the authenticated user; the email cannot be changed
+    @Email(message = "Email should be valid")
+    private String email;
+
+    public boolean hasChanges() {
+        return firstName != null || lastName != null || password != null;
+    }
+
+    // Getters and Setters
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -0,0 +1,18 @@
+package com.csye6225.webapp.dto;
+
+public class UserPatchResponseDto {
+
+    private String accountUpdated;
+
+    public UserPatchResponseDto(String accountUpdated) {
+        this.accountUpdated = accountUpdated;
+    }
+
+    public String getAccountUpdated() {
+        return accountUpdated;
+    }
+
+    public void setAccountUpdated(String accountUpdated) {
+        this.accountUpdated = accountUpdated;
+    }
+}
@@ -1,6 +1,7 @@
 package com.csye6225.webapp.exception;
 
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
@@ -43,4 +44,23 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Map<String, String>> handleDataAccessException() {
         return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
     }
+
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Void> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+    @ExceptionHandler(ImageProcessingRejectedException.class)
+    public ResponseEntity<Void> handleImageProcessingRejected(ImageProcessingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+
+    @ExceptionHandler(InvalidImageException.class)
+    public ResponseEntity<Void> handleInvalidImage() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
 }
@@ -0,0 +1,16 @@
+package com.csye6225.webapp.exception;
+
+// The image processing or picture upload pool and its queue are full; surfaced as 503 with Retry-After
+public class ImageProcessingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ImageProcessingRejectedException(String message, long retryAfterSeconds, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
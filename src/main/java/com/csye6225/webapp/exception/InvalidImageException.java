@@ -0,0 +1,13 @@
+package com.csye6225.webapp.exception;
+
+// The uploaded bytes are not a decodable PNG/JPEG, or exceed the pixel limit; surfaced as 400
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+
+    public InvalidImageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,57 @@
+package com.csye6225.webapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps only a fraction of the INFO lines from the configured loggers. Runs as a turbo filter,
+ * so a sampled-out line is rejected before any logging event is allocated; WARN and ERROR
+ * always pass. Configured with one {@code <sample>logger.name=fraction</sample>} per logger.
+ */
+public class LogSamplingFilter extends TurboFilter {
+
+    private final Map<String, Double> configured = new HashMap<>();
+    private final LongAdder sampledOut = new LongAdder();
+    private Map<String, Double> keepFractions = Map.of();
+
+    public void addSample(String sample) {
+        int eq = sample.lastIndexOf('=');
+        if (eq < 0) {
+            addError("Expected logger.name=fraction but got [" + sample + "]");
+            return;
+        }
+        configured.put(sample.substring(0, eq).trim(), Double.parseDouble(sample.substring(eq + 1).trim()));
+    }
+
+    @Override
+    public void start() {
+        keepFractions = Map.copyOf(configured);
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // format is null for isInfoEnabled() style checks, which must not be sampled
+        if (format == null || level != Level.INFO) {
+            return FilterReply.NEUTRAL;
+        }
+        Double keepFraction = keepFractions.get(logger.getName());
+        if (keepFraction == null || ThreadLocalRandom.current().nextDouble() < keepFraction) {
+            return FilterReply.NEUTRAL;
+        }
+        sampledOut.increment();
+        return FilterReply.DENY;
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.Appender;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Exports the logging pipeline's own health to StatsD: events dropped and queue depth per
+ * async appender, and INFO lines removed by sampling.
+ */
+@Component
+public class LoggingMetrics {
+
+    private final StatsDClient statsDClient;
+    private final Map<String, Long> lastCounts = new HashMap<>();
+
+    public LoggingMetrics(StatsDClient statsDClient) {
+        this.statsDClient = statsDClient;
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.export-interval-ms:10000}")
+    public void export() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+            return;
+        }
+        Iterator<Appender<ILoggingEvent>> appenders =
+                context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            if (appenders.next() instanceof RingBufferAsyncAppender appender) {
+                String prefix = "logging." + appender.getName().toLowerCase();
+                countDelta(prefix + ".dropped", appender.getDroppedCount());
+                statsDClient.gauge(prefix + ".queue_depth", appender.getQueueDepth());
+            }
+        }
+        for (TurboFilter filter : context.getTurboFilterList()) {
+            if (filter instanceof LogSamplingFilter sampling) {
+                countDelta("logging.sampled_out", sampling.getSampledOutCount());
+            }
+        }
+    }
+
+    // The appenders keep running totals; StatsD counters take increments
+    private void countDelta(String metric, long total) {
+        long delta = total - lastCounts.getOrDefault(metric, 0L);
+        lastCounts.put(metric, total);
+        if (delta > 0) {
+            statsDClient.count(metric, delta);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.security.CredentialCache;
+import com.csye6225.webapp.service.UserCache;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Applies invalidations published by other instances. Holds one dedicated connection outside
+ * the Hikari pool that LISTENs on the invalidation channel, polled by a background thread.
+ * Notifications sent while the connection is down are lost, so every (re)connect starts by
+ * clearing the local user and credential caches.
+ */
+@Component
+public class CacheInvalidationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    private final UserCache userCache;
+    private final CredentialCache credentialCache;
+    private final StatsDClient statsDClient;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+
+    @Value("${cache.invalidation.poll-ms:500}")
+    private int pollMillis = 500;
+
+    @Value("${cache.invalidation.health-check-ms:10000}")
+    private long healthCheckMillis = 10000;
+
+    @Value("${cache.invalidation.reconnect-min-ms:1000}")
+    private long reconnectMinMillis = 1000;
+
+    @Value("${cache.invalidation.reconnect-max-ms:30000}")
+    private long reconnectMaxMillis = 30000;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread thread;
+
+    public CacheInvalidationListener(UserCache userCache, CredentialCache credentialCache, StatsDClient statsDClient,
+                                     DataSourceProperties dataSourceProperties,
+                                     @Value("${cache.invalidation.enabled:true}") boolean enabled) {
+        this.userCache = userCache;
+        this.credentialCache = credentialCache;
+        this.statsDClient = statsDClient;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled && CacheInvalidationPublisher.isPostgres(dataSourceProperties.determineUrl());
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            logger.info("Cache invalidation bus disabled; cached users expire by TTL only");
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("cache-invalidation-listener").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(pollMillis + 1000L);
+        }
+    }
+
+    public boolean isListening() {
+        return listening;
+    }
+
+    // Own connection rather than a pooled one: it is held for the life of the process
+    protected Connection openConnection() throws SQLException {
+        Properties properties = new Properties();
+        if (dataSourceProperties.determineUsername() != null) {
+            properties.setProperty("user", dataSourceProperties.determineUsername());
+        }
+        if (dataSourceProperties.determinePassword() != null) {
+            properties.setProperty("password", dataSourceProperties.determinePassword());
+        }
+        properties.setProperty("ApplicationName", "cache-invalidation-listener");
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(dataSourceProperties.determineUrl(), properties);
+    }
+
+    private void run() {
+        long backoff = reconnectMinMillis;
+        while (running) {
+            try (Connection connection = openConnection()) {
+                listen(connection);
+                backoff = reconnectMinMillis;
+                receive(connection);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                statsDClient.incrementCounter("cache.invalidation.reconnect");
+                logger.warn("Cache invalidation listener disconnected, retrying in {} ms: {}", backoff, e.getMessage());
+            } finally {
+                listening = false;
+            }
+            if (!sleep(backoff)) {
+                break;
+            }
+            backoff = Math.min(backoff * 2, reconnectMaxMillis);
+        }
+    }
+
+    private void listen(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CacheInvalidationPublisher.CHANNEL);
+        }
+        // Anything published before LISTEN took effect was missed
+        userCache.evictAll();
+        credentialCache.invalidateAll();
+        listening = true;
+        logger.info("Listening for cache invalidations on {}", CacheInvalidationPublisher.CHANNEL);
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long lastActivity = System.currentTimeMillis();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+            long now = System.currentTimeMillis();
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    userCache.evict(notification.getParameter());
+                    credentialCache.invalidate(notification.getParameter());
+                }
+                statsDClient.count("cache.invalidation.received", notifications.length);
+                lastActivity = now;
+            } else if (now - lastActivity >= healthCheckMillis) {
+                // A silently dropped connection just looks idle; round-trip to find out
+                if (!connection.isValid(2)) {
+                    throw new SQLException("listener connection is no longer valid");
+                }
+                lastActivity = now;
+            }
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
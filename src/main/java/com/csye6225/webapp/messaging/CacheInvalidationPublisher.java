@@ -0,0 +1,58 @@
+package com.csye6225.webapp.messaging;
+
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells the other instances that a user row changed, with a Postgres NOTIFY carrying the email
+ * on a shared channel. Delivery is best effort: if the notify fails the write still stands and
+ * other instances fall back to the cache TTL.
+ */
+@Component
+public class CacheInvalidationPublisher {
+
+    public static final String CHANNEL = "user_cache_invalidation";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationPublisher.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StatsDClient statsDClient;
+    private final boolean enabled;
+
+    public CacheInvalidationPublisher(JdbcTemplate jdbcTemplate, StatsDClient statsDClient,
+                                      DataSourceProperties dataSourceProperties,
+                                      @Value("${cache.invalidation.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsDClient = statsDClient;
+        this.enabled = enabled && isPostgres(dataSourceProperties.determineUrl());
+    }
+
+    public void publish(String email) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Inside a transaction Postgres holds the notification until commit
+            jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, email);
+            statsDClient.incrementCounter("cache.invalidation.published");
+        } catch (DataAccessException e) {
+            statsDClient.incrementCounter("cache.invalidation.publish_failed");
+            logger.warn("Could not publish cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // LISTEN/NOTIFY is Postgres-only; other databases (the H2 load test) run without the bus
+    static boolean isPostgres(String url) {
+        return url != null && url.startsWith("jdbc:postgresql:");
+    }
+}
@@ -0,0 +1,37 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.model.OutboxMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process stand-in for SNS, used for local runs and tests (messaging.publisher=local).
+ */
+@Component
+@ConditionalOnProperty(name = "messaging.publisher", havingValue = "local")
+public class InMemoryMessagePublisher implements MessagePublisher {
+
+    private final ConcurrentLinkedQueue<String> published = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public Map<Long, String> publish(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            published.add(message.getPayload());
+        }
+        return Collections.emptyMap();
+    }
+
+    public List<String> getPublished() {
+        return new ArrayList<>(published);
+    }
+
+    public void clear() {
+        published.clear();
+    }
+}
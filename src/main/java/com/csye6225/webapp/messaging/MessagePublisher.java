@@ -0,0 +1,20 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.model.OutboxMessage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes a batch of outbox messages to the verification topic.
+ */
+public interface MessagePublisher {
+
+    // Largest batch a single publish call accepts (SNS PublishBatch limit)
+    int MAX_BATCH_SIZE = 10;
+
+    /**
+     * @return the failure reason for each message id that was not accepted; empty when all succeeded
+     */
+    Map<Long, String> publish(List<OutboxMessage> batch);
+}
@@ -0,0 +1,169 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.model.OutboxMessage;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the outbox in the background: claims due rows, publishes them in batches through
+ * the configured MessagePublisher, deletes what was accepted and reschedules the rest
+ * with exponential backoff.
+ *
+ * A claim is a lease: next_attempt_at is moved past the publish timeout in a short transaction,
+ * so no other instance picks the rows up while they are published with no transaction or
+ * connection held. If this instance dies mid-publish, the rows become due again when the
+ * lease runs out.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final MessagePublisher messagePublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final StatsDClient statsDClient;
+
+    @Value("${outbox.batch-size:10}")
+    private int batchSize = MessagePublisher.MAX_BATCH_SIZE;
+
+    @Value("${outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun = 20;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts = 10;
+
+    @Value("${outbox.backoff-base-ms:1000}")
+    private long backoffBaseMillis = 1000;
+
+    @Value("${outbox.backoff-max-ms:300000}")
+    private long backoffMaxMillis = 300000;
+
+    @Value("${outbox.lease-ms:120000}")
+    private long leaseMillis = 120000;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxMessageRepository, MessagePublisher messagePublisher,
+                            TransactionTemplate transactionTemplate, StatsDClient statsDClient) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.messagePublisher = messagePublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.statsDClient = statsDClient;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.dispatch-interval-ms:1000}")
+    public void dispatch() {
+        try {
+            int limit = Math.min(batchSize, MessagePublisher.MAX_BATCH_SIZE);
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                if (dispatchBatch(limit) < limit) {
+                    break;
+                }
+            }
+            recordBacklog();
+        } catch (Exception e) {
+            logger.error("Outbox dispatch failed: {}", e.getMessage());
+        }
+    }
+
+    int dispatchBatch(int limit) {
+        long now = System.currentTimeMillis();
+        Timestamp leaseUntil = new Timestamp(now + leaseMillis);
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> claim(now, leaseUntil, limit));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.currentTimeMillis();
+        Map<Long, String> failures;
+        try {
+            failures = messagePublisher.publish(batch);
+        } catch (Exception e) {
+            logger.warn("Failed to publish outbox batch of {}: {}", batch.size(), e.getMessage());
+            failures = new HashMap<>();
+            for (OutboxMessage message : batch) {
+                failures.put(message.getId(), e.getMessage());
+            }
+        }
+        statsDClient.recordExecutionTime("messaging.outbox.publish.time", System.currentTimeMillis() - start);
+
+        Map<Long, String> outcome = failures;
+        transactionTemplate.executeWithoutResult(status -> complete(batch, outcome, leaseUntil));
+        return batch.size();
+    }
+
+    // SKIP LOCKED keeps concurrent claims apart; the lease is committed before anything is published
+    private List<OutboxMessage> claim(long now, Timestamp leaseUntil, int limit) {
+        List<OutboxMessage> batch = outboxMessageRepository.lockDueMessages(new Timestamp(now), limit);
+        for (OutboxMessage message : batch) {
+            message.setNextAttemptAt(leaseUntil);
+        }
+        return batch;
+    }
+
+    // Only rows still carrying this lease are updated; one that ran out may already be another instance's
+    private void complete(List<OutboxMessage> batch, Map<Long, String> failures, Timestamp leaseUntil) {
+        long now = System.currentTimeMillis();
+        List<OutboxMessage> leased = outboxMessageRepository.lockLeased(
+                batch.stream().map(OutboxMessage::getId).toList(), leaseUntil);
+        if (leased.size() < batch.size()) {
+            logger.warn("Outbox lease expired for {} of {} messages during publish", batch.size() - leased.size(), batch.size());
+            statsDClient.count("messaging.outbox.lease_expired", batch.size() - leased.size());
+        }
+
+        int published = 0;
+        for (OutboxMessage message : leased) {
+            String error = failures.get(message.getId());
+            if (error == null) {
+                outboxMessageRepository.delete(message);
+                statsDClient.recordExecutionTime("messaging.outbox.delivery_lag", now - message.getCreatedAt().getTime());
+                published++;
+            } else {
+                reschedule(message, error, now);
+            }
+        }
+
+        statsDClient.count("messaging.outbox.published", published);
+        if (published < leased.size()) {
+            statsDClient.count("messaging.outbox.failed", leased.size() - published);
+        }
+    }
+
+    private void reschedule(OutboxMessage message, String error, long now) {
+        int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        message.setLastError(error == null || error.length() <= 1024 ? error : error.substring(0, 1024));
+
+        if (attempts >= maxAttempts) {
+            logger.error("Giving up on outbox message {} after {} attempts: {}", message.getId(), attempts, error);
+            message.setStatus(OutboxMessage.STATUS_FAILED);
+            statsDClient.incrementCounter("messaging.outbox.dead_lettered");
+        } else {
+            message.setNextAttemptAt(new Timestamp(now + backoffMillis(attempts)));
+        }
+        outboxMessageRepository.save(message);
+    }
+
+    long backoffMillis(int attempts) {
+        long delay = backoffBaseMillis << Math.min(attempts - 1, 30);
+        return delay <= 0 ? backoffMaxMillis : Math.min(delay, backoffMaxMillis);
+    }
+
+    private void recordBacklog() {
+        statsDClient.gauge("messaging.outbox.queue_depth", outboxMessageRepository.countByStatus(OutboxMessage.STATUS_PENDING));
+
+        OutboxMessage oldest = outboxMessageRepository.findFirstByStatusOrderByCreatedAtAsc(OutboxMessage.STATUS_PENDING);
+        long lag = oldest == null ? 0 : System.currentTimeMillis() - oldest.getCreatedAt().getTime();
+        statsDClient.gauge("messaging.outbox.lag_ms", lag);
+    }
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.model.OutboxMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sns.SnsAsyncClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+@Component
+@ConditionalOnProperty(name = "messaging.publisher", havingValue = "sns", matchIfMissing = true)
+public class SnsMessagePublisher implements MessagePublisher {
+
+    private final SnsAsyncClient snsAsyncClient;
+    private final String topicArn;
+
+    public SnsMessagePublisher(SnsAsyncClient snsAsyncClient, @Value("${aws.sns.topic-arn}") String topicArn) {
+        this.snsAsyncClient = snsAsyncClient;
+        this.topicArn = topicArn;
+    }
+
+    @Override
+    public Map<Long, String> publish(List<OutboxMessage> batch) {
+        List<PublishBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (OutboxMessage message : batch) {
+            entries.add(PublishBatchRequestEntry.builder()
+                    .id(message.getId().toString())
+                    .message(message.getPayload())
+                    .build());
+        }
+
+        // The dispatcher needs the per-message result before it updates the rows, so this waits;
+        // it holds a lease on the rows, not a transaction or a connection
+        PublishBatchResponse response;
+        try {
+            response = snsAsyncClient.publishBatch(PublishBatchRequest.builder()
+                    .topicArn(topicArn)
+                    .publishBatchRequestEntries(entries)
+                    .build()).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        for (BatchResultErrorEntry error : response.failed()) {
+            failures.put(Long.valueOf(error.id()), error.code() + ": " + error.message());
+        }
+        return failures;
+    }
+}
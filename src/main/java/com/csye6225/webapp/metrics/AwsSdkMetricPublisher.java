@@ -0,0 +1,80 @@
+package com.csye6225.webapp.metrics;
+
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Receives the SDK's per-call metrics for S3 and SNS: call latency goes to the LatencyRegistry
+ * under the same "aws.s3.putObject" style names the synchronous clients were timed with, and the
+ * shared HTTP client's pool state (leased, pending, connection wait) to StatsD.
+ */
+@Component
+public class AwsSdkMetricPublisher implements MetricPublisher {
+
+    private final LatencyRegistry latencyRegistry;
+    private final StatsDClient statsDClient;
+
+    public AwsSdkMetricPublisher(LatencyRegistry latencyRegistry, StatsDClient statsDClient) {
+        this.latencyRegistry = latencyRegistry;
+        this.statsDClient = statsDClient;
+    }
+
+    // Called once per API call with the attempts (and their HTTP metrics) as children
+    @Override
+    public void publish(MetricCollection metrics) {
+        String service = first(metrics, CoreMetric.SERVICE_ID);
+        String operation = first(metrics, CoreMetric.OPERATION_NAME);
+        if (service == null || operation == null) {
+            return;
+        }
+        String name = "aws." + service.toLowerCase() + "." + Character.toLowerCase(operation.charAt(0)) + operation.substring(1);
+
+        Duration duration = first(metrics, CoreMetric.API_CALL_DURATION);
+        if (duration != null) {
+            latencyRegistry.record(name, duration.toNanos());
+        }
+        if (Boolean.FALSE.equals(first(metrics, CoreMetric.API_CALL_SUCCESSFUL))) {
+            statsDClient.incrementCounter(name + ".failed");
+        }
+        Integer retries = first(metrics, CoreMetric.RETRY_COUNT);
+        if (retries != null && retries > 0) {
+            statsDClient.count(name + ".retries", retries);
+        }
+        publishHttpMetrics(metrics);
+    }
+
+    private void publishHttpMetrics(MetricCollection metrics) {
+        Duration acquire = first(metrics, HttpMetric.CONCURRENCY_ACQUIRE_DURATION);
+        if (acquire != null) {
+            latencyRegistry.record("aws.http.acquire", acquire.toNanos());
+        }
+        Integer leased = first(metrics, HttpMetric.LEASED_CONCURRENCY);
+        if (leased != null) {
+            statsDClient.gauge("aws.http.leased", leased);
+        }
+        Integer pending = first(metrics, HttpMetric.PENDING_CONCURRENCY_ACQUIRES);
+        if (pending != null) {
+            statsDClient.gauge("aws.http.pending_acquires", pending);
+        }
+        for (MetricCollection child : metrics.children()) {
+            publishHttpMetrics(child);
+        }
+    }
+
+    private static <T> T first(MetricCollection metrics, SdkMetric<T> metric) {
+        List<T> values = metrics.metricValues(metric);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,106 @@
+package com.csye6225.webapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram of nanosecond durations. Each power of two is split into
+ * 8 linear sub-buckets, so reported percentiles are within ~12.5% of the true value.
+ * snapshotAndReset() drains it, so each export covers one interval rather than the lifetime.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values above 2^43 ns (~2.4 hours) are clamped into the last bucket
+    private static final int MAX_EXPONENT = 42;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        sum.add(nanos);
+
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return snapshot(counts, sum.sum(), max.get());
+    }
+
+    // Each bucket is taken and zeroed atomically, so a concurrent record lands in this interval or the next
+    public Snapshot snapshotAndReset() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.getAndSet(i, 0);
+        }
+        return snapshot(counts, sum.sumThenReset(), max.getAndSet(0));
+    }
+
+    private static Snapshot snapshot(long[] counts, long sumNanos, long maxValue) {
+        long total = 0;
+        for (long bucketCount : counts) {
+            total += bucketCount;
+        }
+        return new Snapshot(total, sumNanos, maxValue,
+                percentile(counts, total, 0.50, maxValue),
+                percentile(counts, total, 0.95, maxValue),
+                percentile(counts, total, 0.99, maxValue));
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(int index) {
+        int row = index / SUB_BUCKETS;
+        int subBucket = index % SUB_BUCKETS;
+        if (row == 0) {
+            return subBucket;
+        }
+        long lower = (long) (SUB_BUCKETS + subBucket) << (row - 1);
+        return lower + (1L << (row - 1)) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public record Snapshot(long count, long sumNanos, long maxNanos, long p50Nanos, long p95Nanos, long p99Nanos) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.csye6225.webapp.metrics;
+
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process latency histograms per endpoint and dependency, periodically exported to StatsD
+ * and rendered as text by MetricsController. Each export drains the histograms, so percentiles
+ * describe the last interval; counts and sums are also kept as running totals for the endpoint.
+ */
+@Component
+public class LatencyRegistry {
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final StatsDClient statsDClient;
+    // Replaced as a whole on each export; only the export thread writes it
+    private volatile Map<String, Exported> exported = Map.of();
+
+    /**
+     * One exported interval plus the running count and sum up to and including it.
+     */
+    public record Exported(LatencyHistogram.Snapshot interval, long totalCount, long totalSumNanos) {
+    }
+
+    public LatencyRegistry(StatsDClient statsDClient) {
+        this.statsDClient = statsDClient;
+    }
+
+    public void record(String name, long nanos) {
+        histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(nanos);
+    }
+
+    // The interval in progress, without draining it
+    public Map<String, LatencyHistogram.Snapshot> snapshots() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    // The last completed interval, as served by MetricsController
+    public Map<String, Exported> exported() {
+        return exported;
+    }
+
+    // Percentiles are exported in microseconds so sub-millisecond calls stay visible
+    @Scheduled(fixedDelayString = "${metrics.export-interval-ms:10000}")
+    public synchronized void exportToStatsD() {
+        Map<String, Exported> previous = exported;
+        Map<String, Exported> next = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+            Exported before = previous.get(name);
+            next.put(name, new Exported(snapshot,
+                    (before == null ? 0 : before.totalCount()) + snapshot.count(),
+                    (before == null ? 0 : before.totalSumNanos()) + snapshot.sumNanos()));
+            statsDClient.gauge(name + ".time.count", snapshot.count());
+            statsDClient.gauge(name + ".time.p50_us", snapshot.p50Nanos() / 1000);
+            statsDClient.gauge(name + ".time.p95_us", snapshot.p95Nanos() / 1000);
+            statsDClient.gauge(name + ".time.p99_us", snapshot.p99Nanos() / 1000);
+            statsDClient.gauge(name + ".time.max_us", snapshot.maxNanos() / 1000);
+        });
+        exported = next;
+    }
+}
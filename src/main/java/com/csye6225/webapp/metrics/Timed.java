@@ -0,0 +1,17 @@
+package com.csye6225.webapp.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records the execution time of the annotated method into the named latency histogram.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timed {
+
+    // Metric name, e.g. "api.user.getUserDetails"
+    String value();
+}
@@ -0,0 +1,59 @@
+package com.csye6225.webapp.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times @Timed methods plus every call into our repositories with System.nanoTime, so
+ * dependencies are measured without hand-written timer pairs at each call site. The async S3
+ * and SNS clients return before the call completes and report through AwsSdkMetricPublisher.
+ */
+@Aspect
+@Component
+public class TimingAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.csye6225.webapp.repository";
+
+    private final LatencyRegistry latencyRegistry;
+    private final Map<Class<?>, String> repositoryPrefixes = new ConcurrentHashMap<>();
+
+    public TimingAspect(LatencyRegistry latencyRegistry) {
+        this.latencyRegistry = latencyRegistry;
+    }
+
+    @Around("@annotation(timed)")
+    public Object timeAnnotated(ProceedingJoinPoint joinPoint, Timed timed) throws Throwable {
+        return time(timed.value(), joinPoint);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        String prefix = repositoryPrefixes.computeIfAbsent(joinPoint.getThis().getClass(), TimingAspect::repositoryPrefix);
+        return time(prefix + joinPoint.getSignature().getName(), joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            latencyRegistry.record(name, System.nanoTime() - start);
+        }
+    }
+
+    // "db.userRepository." for the proxy implementing UserRepository
+    private static String repositoryPrefix(Class<?> proxyClass) {
+        for (Class<?> candidate : proxyClass.getInterfaces()) {
+            if (candidate.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                String simpleName = candidate.getSimpleName();
+                return "db." + Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1) + ".";
+            }
+        }
+        return "db." + proxyClass.getSimpleName() + ".";
+    }
+}
@@ -0,0 +1,52 @@
+package com.csye6225.webapp.model;
+
+import jakarta.persistence.*;
+
+import java.sql.Timestamp;
+
+// One content-addressed profile picture in S3 (original plus renditions) and how many users reference it
+@Entity
+@Table(name = "profile_pic_objects")
+public class ProfilePicObject {
+
+    @Id
+    @Column(name = "object_key", nullable = false)
+    private String objectKey;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    // False until one uploader has finished the PUTs; until then every uploader stores the (identical) bytes
+    @Column(nullable = false)
+    private boolean stored;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+
+    public ProfilePicObject() {
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public boolean isStored() {
+        return stored;
+    }
+
+    public void setStored(boolean stored) {
+        this.stored = stored;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+}
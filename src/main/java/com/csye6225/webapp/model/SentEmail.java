@@ -2,10 +2,19 @@ package com.csye6225.webapp.model;
 
 import jakarta.persistence.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Timestamp;
+import java.util.HexFormat;
 
 @Entity
-@Table(name = "sent_emails")
+@Table(name = "sent_emails", indexes = {
+        @Index(name = "ux_sent_emails_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "ix_sent_emails_sent_at", columnList = "sent_at"),
+        @Index(name = "ix_sent_emails_email", columnList = "email"),
+        @Index(name = "ix_sent_emails_token", columnList = "token")
+})
 public class SentEmail {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,6 +26,10 @@ public class SentEmail {
     @Column(nullable = false)
     private String token;
 
+    // Hex SHA-256 of the token; lookups go through its unique index instead of scanning by token
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
     @Column(name = "sent_at", nullable = false)
     private Timestamp sentAt;
 
@@ -46,6 +59,14 @@ public class SentEmail {
         this.token = token;
     }
 
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+
     public Timestamp getSentAt() {
         return sentAt;
     }
@@ -61,4 +82,21 @@ public class SentEmail {
     public void setStatus(String status) {
         this.status = status;
     }
+
+    @PrePersist
+    @PreUpdate
+    void populateTokenHash() {
+        if (token != null) {
+            tokenHash = hashToken(token);
+        }
+    }
+
+    public static String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
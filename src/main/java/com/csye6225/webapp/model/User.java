@@ -10,8 +10,10 @@ import java.time.LocalDateTime;
 @Table(name = "users")
 public class User {
 
+    // Pooled sequence ids let Hibernate batch inserts; IDENTITY forces one INSERT round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -40,6 +42,10 @@ public class User {
     @Column(name = "profile_pic_url")
     private String profilePicUrl;
 
+    // True once the resized renditions were stored next to the original; null for older uploads
+    @Column(name = "profile_pic_renditions")
+    private Boolean profilePicRenditions;
+
     public String getEmail() {
         return email;
     }
@@ -100,6 +106,14 @@ public class User {
         this.profilePicUrl = profilePicUrl;
     }
 
+    public Boolean getProfilePicRenditions() {
+        return profilePicRenditions;
+    }
+
+    public void setProfilePicRenditions(Boolean profilePicRenditions) {
+        this.profilePicRenditions = profilePicRenditions;
+    }
+
     public Boolean getEmailVerified() {
         return emailVerified;
     }
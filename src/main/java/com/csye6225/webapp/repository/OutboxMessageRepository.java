@@ -0,0 +1,28 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // SKIP LOCKED lets several instances drain the outbox without publishing the same row twice
+    @Query(value = "SELECT * FROM outbox_messages WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxMessage> lockDueMessages(@Param("now") Timestamp now, @Param("limit") int limit);
+
+    // The claimed rows whose lease is still the one the dispatcher set
+    @Query(value = "SELECT * FROM outbox_messages WHERE id IN (:ids) AND next_attempt_at = :leaseUntil " +
+            "FOR UPDATE", nativeQuery = true)
+    List<OutboxMessage> lockLeased(@Param("ids") List<Long> ids, @Param("leaseUntil") Timestamp leaseUntil);
+
+    long countByStatus(String status);
+
+    OutboxMessage findFirstByStatusOrderByCreatedAtAsc(String status);
+}
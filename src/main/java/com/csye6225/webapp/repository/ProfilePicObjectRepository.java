@@ -0,0 +1,30 @@
+package com.csye6225.webapp.repository;
+
+import com.csye6225.webapp.model.ProfilePicObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+
+@Repository
+public interface ProfilePicObjectRepository extends JpaRepository<ProfilePicObject, String> {
+
+    // Concurrent first uploads of the same content both succeed; the second waits for the first to commit
+    @Modifying
+    @Query(value = "INSERT INTO profile_pic_objects (object_key, ref_count, stored, created_at) " +
+            "VALUES (:key, 0, false, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("now") Timestamp now);
+
+    // Reference counts only change under this row lock, so the last release and a new reference never interleave
+    @Query(value = "SELECT * FROM profile_pic_objects WHERE object_key = :key FOR UPDATE", nativeQuery = true)
+    ProfilePicObject lockByKey(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE profile_pic_objects SET stored = true WHERE object_key = :key", nativeQuery = true)
+    int markStored(@Param("key") String key);
+}
@@ -2,11 +2,31 @@ package com.csye6225.webapp.repository;
 
 import com.csye6225.webapp.model.SentEmail;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.Optional;
 
 @Repository
 public interface SentEmailRepository extends JpaRepository<SentEmail, Long> {
-    Optional<SentEmail> findByToken(String token);
+    Optional<SentEmail> findByTokenHash(String tokenHash);
+
+    // Rows inserted by writers that do not set token_hash yet; found through ix_sent_emails_token
+    Optional<SentEmail> findByTokenAndTokenHashIsNull(String token);
+
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE sent_emails SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex') " +
+            "WHERE id IN (SELECT id FROM sent_emails WHERE token_hash IS NULL LIMIT :limit)", nativeQuery = true)
+    int backfillTokenHashes(@Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM sent_emails WHERE id IN (SELECT id FROM sent_emails " +
+            "WHERE status = 'VERIFIED' OR sent_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteVerifiedOrSentBefore(@Param("cutoff") Timestamp cutoff, @Param("limit") int limit);
 }
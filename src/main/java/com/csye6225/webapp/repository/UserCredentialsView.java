@@ -0,0 +1,8 @@
+package com.csye6225.webapp.repository;
+
+import java.time.LocalDateTime;
+
+// Columns authentication needs: the hash and verified flag, plus id and accountUpdated for the ETag
+public record UserCredentialsView(Long id, String email, String password, Boolean emailVerified,
+                                  LocalDateTime accountUpdated) {
+}
@@ -0,0 +1,8 @@
+package com.csye6225.webapp.repository;
+
+import java.time.LocalDateTime;
+
+// Columns behind UserResponseDto; never includes the password hash
+public record UserProfileView(Long id, String email, String firstName, String lastName,
+                              LocalDateTime accountCreated, LocalDateTime accountUpdated) {
+}
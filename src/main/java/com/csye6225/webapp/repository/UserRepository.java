@@ -1,12 +1,58 @@
 package com.csye6225.webapp.repository;
 
 import com.csye6225.webapp.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByEmail(String email);
 
     User findByEmail(String email);
+
+    // Read-only projection: constructor results are never managed entities, so Hibernate keeps
+    // no snapshot, does no dirty checking and never flushes them. Loaded by email, the natural id
+    @Query("SELECT new com.csye6225.webapp.repository.UserSnapshot(u.id, u.email, u.password, u.emailVerified, " +
+            "u.firstName, u.lastName, u.accountCreated, u.accountUpdated) FROM User u WHERE u.email = :email")
+    UserSnapshot findSnapshotByEmail(@Param("email") String email);
+
+    // One UPDATE, no prior SELECT; a null argument keeps the current value. Bulk updates skip
+    // @UpdateTimestamp, so the caller supplies accountUpdated
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.firstName = COALESCE(:firstName, u.firstName), u.lastName = COALESCE(:lastName, u.lastName), " +
+            "u.password = COALESCE(:password, u.password), u.accountUpdated = :accountUpdated WHERE u.email = :email")
+    int updateProfile(@Param("email") String email, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                      @Param("password") String password, @Param("accountUpdated") LocalDateTime accountUpdated);
+
+    // Claims the picture slot only if it is empty, so of two concurrent uploads exactly one wins
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.profilePicUrl = :key, u.profilePicRenditions = true, u.accountUpdated = :accountUpdated " +
+            "WHERE u.email = :email AND u.profilePicUrl IS NULL")
+    int setProfilePicIfAbsent(@Param("email") String email, @Param("key") String key,
+                              @Param("accountUpdated") LocalDateTime accountUpdated);
+
+    // Clears the picture only if it is still the one read, so of two concurrent deletes exactly one wins
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.profilePicUrl = NULL, u.profilePicRenditions = NULL, u.accountUpdated = :accountUpdated " +
+            "WHERE u.email = :email AND u.profilePicUrl = :key")
+    int clearProfilePic(@Param("email") String email, @Param("key") String key,
+                        @Param("accountUpdated") LocalDateTime accountUpdated);
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    Slice<User> findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package com.csye6225.webapp.repository;
+
+import java.time.LocalDateTime;
+
+// Immutable copy of the columns behind authentication and UserResponseDto, as held by UserCache
+public record UserSnapshot(Long id, String email, String password, Boolean emailVerified, String firstName,
+                           String lastName, LocalDateTime accountCreated, LocalDateTime accountUpdated) {
+
+    public UserCredentialsView credentials() {
+        return new UserCredentialsView(id, email, password, emailVerified, accountUpdated);
+    }
+
+    public UserProfileView profile() {
+        return new UserProfileView(id, email, firstName, lastName, accountCreated, accountUpdated);
+    }
+}
@@ -0,0 +1,78 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.repository.UserCredentialsView;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated principal built from the narrow credentials projection loaded during
+ * authentication. It carries what the filter chain needs (verified flag) and the ETag
+ * inputs (id, accountUpdated), so a 304 on /v1/user/self needs no further query.
+ */
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    // May call POST /v1/user/bulk
+    public static final String ROLE_PROVISIONER = "PROVISIONER";
+
+    private final Long id;
+    private final String email;
+    private final LocalDateTime accountUpdated;
+    private final boolean emailVerified;
+    private final Collection<? extends GrantedAuthority> authorities;
+    private String password;
+
+    public AuthenticatedUser(UserCredentialsView credentials) {
+        this(credentials, Collections.emptyList());
+    }
+
+    public AuthenticatedUser(UserCredentialsView credentials, Collection<? extends GrantedAuthority> authorities) {
+        this.id = credentials.id();
+        this.email = credentials.email();
+        this.accountUpdated = credentials.accountUpdated();
+        this.emailVerified = Boolean.TRUE.equals(credentials.emailVerified());
+        this.password = credentials.password();
+        this.authorities = authorities;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public LocalDateTime getAccountUpdated() {
+        return accountUpdated;
+    }
+
+    public boolean isEmailVerified() {
+        return emailVerified;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    // Called by the ProviderManager once authentication succeeds
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
@@ -0,0 +1,100 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.exception.PasswordHashingRejectedException;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * BCryptPasswordEncoder that runs every encode and matches on the bounded hashing pool, so
+ * signups, updates and logins cannot take every CPU away from request threads. The caller
+ * waits for the result; when the pool and its queue are full the call is refused at once
+ * with PasswordHashingRejectedException instead of queueing further.
+ */
+public class BoundedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    // Set while a pool thread runs a task, so nested calls hash inline instead of waiting on their own pool
+    private static final ThreadLocal<Boolean> ON_POOL = ThreadLocal.withInitial(() -> false);
+
+    private final ThreadPoolTaskExecutor executor;
+    private final LatencyRegistry latencyRegistry;
+    private final StatsDClient statsDClient;
+    private final long retryAfterSeconds;
+
+    public BoundedBCryptPasswordEncoder(ThreadPoolTaskExecutor executor, LatencyRegistry latencyRegistry,
+                                        StatsDClient statsDClient, long retryAfterSeconds) {
+        this.executor = executor;
+        this.latencyRegistry = latencyRegistry;
+        this.statsDClient = statsDClient;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash("password_hash.encode", () -> super.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash("password_hash.matches", () -> super.matches(rawPassword, encodedPassword));
+    }
+
+    // Runs a task on the hashing pool; encode/matches calls made inside it run inline
+    public <T> Future<T> submit(Callable<T> task) {
+        try {
+            return executor.submit(() -> {
+                ON_POOL.set(true);
+                try {
+                    return task.call();
+                } finally {
+                    ON_POOL.remove();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            statsDClient.incrementCounter("password_hash.rejected");
+            throw new PasswordHashingRejectedException("Password hashing capacity exhausted", retryAfterSeconds, e);
+        }
+    }
+
+    public int getPoolSize() {
+        return executor.getMaxPoolSize();
+    }
+
+    private <T> T hash(String name, Supplier<T> hash) {
+        if (ON_POOL.get()) {
+            return timed(name, hash);
+        }
+        long submitted = System.nanoTime();
+        Future<T> future = submit(() -> {
+            latencyRegistry.record("password_hash.queue_wait", System.nanoTime() - submitted);
+            return timed(name, hash);
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(String name, Supplier<T> hash) {
+        long start = System.nanoTime();
+        try {
+            return hash.get();
+        } finally {
+            latencyRegistry.record(name, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.exception.PasswordHashingRejectedException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * DaoAuthenticationProvider that consults the CredentialCache before running BCrypt,
+ * and records credentials that pass the full check.
+ */
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final CredentialCache credentialCache;
+
+    public CachingDaoAuthenticationProvider(CredentialCache credentialCache) {
+        this.credentialCache = credentialCache;
+    }
+
+    // A full hashing pool is reported through the entry point as 503, not as bad credentials
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        try {
+            return super.authenticate(authentication);
+        } catch (PasswordHashingRejectedException e) {
+            throw new InternalAuthenticationServiceException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails, UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+            return;
+        }
+
+        String rawPassword = credentials.toString();
+        if (credentialCache.isVerified(userDetails.getUsername(), rawPassword, userDetails.getPassword())) {
+            return;
+        }
+
+        // Throws BadCredentialsException on mismatch, so only verified credentials get cached
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        credentialCache.put(userDetails.getUsername(), rawPassword, userDetails.getPassword());
+    }
+}
@@ -0,0 +1,135 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, TTL-based cache of credentials that already passed a BCrypt check.
+ * Entries are keyed by email and hold an HMAC of (email, raw password, stored hash)
+ * under a per-process random key, so the raw password is never kept in memory.
+ */
+@Component
+public class CredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final StatsDClient statsDClient;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxSize;
+    private final SecretKeySpec key;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public CredentialCache(StatsDClient statsDClient,
+                           @Value("${auth.cache.enabled:true}") boolean enabled,
+                           @Value("${auth.cache.ttl-seconds:300}") long ttlSeconds,
+                           @Value("${auth.cache.max-size:10000}") int maxSize) {
+        this.statsDClient = statsDClient;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    // Returns true if these exact credentials were verified recently
+    public boolean isVerified(String email, String rawPassword, String storedHash) {
+        if (!enabled) {
+            return false;
+        }
+        Entry entry = entries.get(email);
+        if (entry == null) {
+            statsDClient.incrementCounter("auth.cache.miss");
+            return false;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            if (entries.remove(email, entry)) {
+                statsDClient.incrementCounter("auth.cache.eviction");
+            }
+            statsDClient.incrementCounter("auth.cache.miss");
+            return false;
+        }
+        if (!MessageDigest.isEqual(entry.digest, digest(email, rawPassword, storedHash))) {
+            statsDClient.incrementCounter("auth.cache.miss");
+            return false;
+        }
+        statsDClient.incrementCounter("auth.cache.hit");
+        return true;
+    }
+
+    public void put(String email, String rawPassword, String storedHash) {
+        if (!enabled) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(email)) {
+            evict();
+        }
+        entries.put(email, new Entry(digest(email, rawPassword, storedHash), System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void invalidate(String email) {
+        if (entries.remove(email) != null) {
+            statsDClient.incrementCounter("auth.cache.invalidation");
+        }
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Drop expired entries first; if still full, drop arbitrary entries until there is room
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expiresAt < now) {
+                it.remove();
+                evicted++;
+            }
+        }
+        it = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evicted++;
+        }
+        if (evicted > 0) {
+            statsDClient.count("auth.cache.eviction", evicted);
+        }
+    }
+
+    private byte[] digest(String email, String rawPassword, String storedHash) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            mac.update(rawPassword.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(storedHash.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+
+    private record Entry(byte[] digest, long expiresAt) {
+    }
+}
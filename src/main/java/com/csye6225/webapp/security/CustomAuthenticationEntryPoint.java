@@ -1,6 +1,7 @@
 package com.csye6225.webapp.security;
 
 import com.csye6225.webapp.exception.DatabaseAuthenticationException;
+import com.csye6225.webapp.exception.PasswordHashingRejectedException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.AuthenticationException;
@@ -17,6 +18,10 @@ public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint
         if (cause instanceof DatabaseAuthenticationException) {
             // Handle database unavailability separately and return 503 Service Unavailable
             response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else if (cause instanceof PasswordHashingRejectedException rejected) {
+            // Hashing pool saturated: shed the login rather than queue it
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", String.valueOf(rejected.getRetryAfterSeconds()));
         } else {
             // Handle normal authentication failure (invalid username/password)
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
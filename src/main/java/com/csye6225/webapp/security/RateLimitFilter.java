@@ -0,0 +1,205 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route-class load shedding: each class has a token bucket per client identity (the
+ * authenticated user, else the client address) and a global cap on requests in flight.
+ * Rejected requests get 429 with Retry-After before any controller work is done.
+ *
+ * This filter runs before authentication. Requests without Basic credentials are limited by
+ * client address here, and an address whose credentials keep failing is refused before they
+ * reach BCrypt. Requests that authenticate are limited per user by {@link #authenticatedLimits()},
+ * which runs after authentication.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Limits for one route class; the first class whose matcher accepts a request applies.
+     */
+    public record RouteLimit(String name, RequestMatcher matcher, double ratePerSecond, int burst, int maxConcurrent) {
+    }
+
+    private final StatsDClient statsDClient;
+    private final List<RouteLimiter> limiters;
+    private final RouteLimiter authFailures;
+    private final AuthenticatedLimits authenticatedLimits = new AuthenticatedLimits();
+
+    // authFailureLimit may be null, leaving failed credentials unlimited
+    public RateLimitFilter(StatsDClient statsDClient, List<RouteLimit> routeLimits, RouteLimit authFailureLimit) {
+        this.statsDClient = statsDClient;
+        this.limiters = routeLimits.stream().map(RouteLimiter::new).toList();
+        this.authFailures = authFailureLimit == null ? null : new RouteLimiter(authFailureLimit);
+    }
+
+    // The second stage, registered after authentication
+    public OncePerRequestFilter authenticatedLimits() {
+        return authenticatedLimits;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String address = "ip:" + request.getRemoteAddr();
+        if (!hasCredentials(request)) {
+            limit(request, response, filterChain, address);
+            return;
+        }
+        if (authFailures == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Checked without taking a token: only failures are charged to the address
+        long waitNanos = authFailures.waitNanos(address, System.nanoTime());
+        if (waitNanos > 0) {
+            reject(response, authFailures.limit.name() + ".throttled", waitNanos);
+            return;
+        }
+        filterChain.doFilter(request, response);
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            authFailures.tryConsume(address, System.nanoTime());
+        }
+    }
+
+    private void limit(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain, String identity)
+            throws ServletException, IOException {
+        RouteLimiter limiter = match(request);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = limiter.tryConsume(identity, System.nanoTime());
+        if (waitNanos > 0) {
+            reject(response, limiter.limit.name() + ".throttled", waitNanos);
+            return;
+        }
+        if (!limiter.inFlight.tryAcquire()) {
+            reject(response, limiter.limit.name() + ".shed", 1_000_000_000L);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.inFlight.release();
+        }
+    }
+
+    // A full bucket carries no state, so idle clients are dropped and the maps stay small
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (RouteLimiter limiter : limiters) {
+            limiter.buckets.values().removeIf(theoreticalArrival -> theoreticalArrival.get() - now <= 0);
+        }
+        if (authFailures != null) {
+            authFailures.buckets.values().removeIf(theoreticalArrival -> theoreticalArrival.get() - now <= 0);
+        }
+    }
+
+    private RouteLimiter match(HttpServletRequest request) {
+        for (RouteLimiter limiter : limiters) {
+            if (limiter.limit.matcher().matches(request)) {
+                return limiter;
+            }
+        }
+        return null;
+    }
+
+    // Only Basic credentials are checked by the chain; any other Authorization header is anonymous
+    private static boolean hasCredentials(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.regionMatches(true, 0, "Basic ", 0, 6);
+    }
+
+    private void reject(HttpServletResponse response, String metric, long waitNanos) {
+        statsDClient.incrementCounter("rate_limit." + metric);
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
+    /**
+     * Route limits for requests that carried credentials, once authentication has accepted them
+     * (failed credentials never get this far).
+     */
+    private class AuthenticatedLimits extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+                throws ServletException, IOException {
+            if (!hasCredentials(request)) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            String identity = authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser principal
+                    ? "user:" + principal.getId() : "ip:" + request.getRemoteAddr();
+            limit(request, response, filterChain, identity);
+        }
+    }
+
+    /**
+     * Token buckets kept as a single theoretical arrival time per client (GCRA), updated with
+     * compare-and-set, so the hot path takes no locks.
+     */
+    static class RouteLimiter {
+
+        final RouteLimit limit;
+        final long intervalNanos;
+        final long burstNanos;
+        final Semaphore inFlight;
+        final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+        RouteLimiter(RouteLimit limit) {
+            this.limit = limit;
+            this.intervalNanos = (long) (1_000_000_000L / limit.ratePerSecond());
+            this.burstNanos = intervalNanos * limit.burst();
+            this.inFlight = new Semaphore(limit.maxConcurrent());
+        }
+
+        // How long until a token is available, without taking it
+        long waitNanos(String identity, long now) {
+            AtomicLong theoreticalArrival = buckets.get(identity);
+            if (theoreticalArrival == null) {
+                return 0;
+            }
+            return Math.max(0, Math.max(theoreticalArrival.get() - now, 0) + intervalNanos - burstNanos);
+        }
+
+        // Returns 0 if a token was taken, otherwise how long until the next one is available
+        long tryConsume(String identity, long now) {
+            AtomicLong theoreticalArrival = buckets.computeIfAbsent(identity, key -> new AtomicLong(now));
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current - now, 0) + now + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
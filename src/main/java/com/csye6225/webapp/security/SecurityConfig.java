@@ -1,16 +1,20 @@
 package com.csye6225.webapp.security;
 
-import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.metrics.LatencyRegistry;
 import com.csye6225.webapp.service.CustomUserDetailsService;
+import com.timgroup.statsd.StatsDClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.servletapi.SecurityContextHolderAwareRequestFilter;
 
 @Configuration
@@ -20,21 +24,40 @@ public class SecurityConfig {
     private CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
 
     @Autowired
-    private UserRepository userRepository;
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    @Qualifier("passwordHashExecutor")
+    private ThreadPoolTaskExecutor passwordHashExecutor;
+
+    @Autowired
+    private LatencyRegistry latencyRegistry;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${password-hashing.retry-after-seconds:1}")
+    private long passwordHashingRetryAfterSeconds;
 
     @Bean
     public UserDetailsService userDetailsService() {
         return new CustomUserDetailsService(); // CustomUserDetailsService will load user by email
     }
 
+    // All BCrypt work (signup, update, login, bulk) runs on the bounded hashing pool, off the request threads
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedBCryptPasswordEncoder passwordEncoder() {
+        return new BoundedBCryptPasswordEncoder(passwordHashExecutor, latencyRegistry, statsDClient,
+                passwordHashingRetryAfterSeconds);
     }
 
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
+        // Repeat logins with the same credentials skip BCrypt until the cache entry expires
+        DaoAuthenticationProvider authProvider = new CachingDaoAuthenticationProvider(credentialCache);
         authProvider.setUserDetailsService(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
         return authProvider;
@@ -44,10 +67,16 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorizeRequests -> authorizeRequests
+                        .requestMatchers("/v1/user/bulk").hasRole(AuthenticatedUser.ROLE_PROVISIONER)
                         .requestMatchers("/v1/user/self", "/v1/user/self/pic").authenticated()
                         .anyRequest().permitAll()
                 )
-                .addFilterAfter(new EmailVerificationFilter(userRepository), SecurityContextHolderAwareRequestFilter.class)
+                // Before authentication, so anonymous requests and failing credentials are limited per client
+                // address and an address flooding bad passwords is refused before BCrypt runs
+                .addFilterBefore(rateLimitFilter, BasicAuthenticationFilter.class)
+                .addFilterAfter(new EmailVerificationFilter(), SecurityContextHolderAwareRequestFilter.class)
+                // Requests that authenticated are limited per user
+                .addFilterAfter(rateLimitFilter.authenticatedLimits(), EmailVerificationFilter.class)
                 .httpBasic(httpBasic -> httpBasic.authenticationEntryPoint(customAuthenticationEntryPoint));
 
         return http.build();
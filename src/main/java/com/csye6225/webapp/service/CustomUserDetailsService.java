@@ -1,43 +1,44 @@
 package com.csye6225.webapp.service;
 
 import com.csye6225.webapp.exception.DatabaseAuthenticationException;
-import com.csye6225.webapp.model.User;
-import com.csye6225.webapp.repository.UserRepository;
-import com.timgroup.statsd.StatsDClient;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.csye6225.webapp.security.AuthenticatedUser;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    @Autowired
-    private UserRepository userRepository;
+    private static final List<GrantedAuthority> PROVISIONER =
+            List.of(new SimpleGrantedAuthority("ROLE_" + AuthenticatedUser.ROLE_PROVISIONER));
 
     @Autowired
-    private StatsDClient statsDClient;
+    private UserCache userCache;
+
+    @Value("${user.bulk.provisioners:}")
+    private Set<String> provisioners = Set.of();
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         try {
-            // Start timer for database query
-            long start = System.currentTimeMillis();
-
-            User user = userRepository.findByEmail(email);
-
-            // Record execution time
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", duration);
+            // Served from the user cache in steady state; a miss loads an unmanaged projection
+            UserSnapshot user = userCache.get(email);
 
             if (user == null) {
                 throw new UsernameNotFoundException("Invalid Email or password");
             }
-            return new org.springframework.security.core.userdetails.User(user.getEmail(), user.getPassword(), new ArrayList<>());
+            return new AuthenticatedUser(user.credentials(),
+                    provisioners.contains(user.email()) ? PROVISIONER : List.of());
         } catch (DataAccessResourceFailureException e) {
             throw new DatabaseAuthenticationException("Database is currently unavailable", e);
         }
@@ -7,6 +7,7 @@ import com.csye6225.webapp.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -22,20 +23,27 @@ public class EmailVerificationService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Value("${verification.token-ttl-seconds:120}")
+    private long tokenTtlSeconds = 120;
+
     public String verifyEmail(String token) {
-        logger.info("Verifying email with token: {}", token);
+        logger.info("Verifying email");
 
-        // Retrieve the email verification entry by token
-        SentEmail sentEmail = sentEmailRepository.findByToken(token)
+        // Retrieve the email verification entry by token hash, falling back to rows not hashed yet
+        SentEmail sentEmail = sentEmailRepository.findByTokenHash(SentEmail.hashToken(token))
+                .or(() -> sentEmailRepository.findByTokenAndTokenHashIsNull(token))
                 .orElseThrow(() -> {
-                    logger.warn("Invalid token: {}", token);
+                    logger.warn("Invalid verification token");
                     return new IllegalArgumentException("Invalid token");
                 });
 
         logger.info("Email token found for email: {}", sentEmail.getEmail());
 
         // Check if the token is expired
-        if (sentEmail.getSentAt().toInstant().plusSeconds(120).isBefore(Instant.now())) {
+        if (sentEmail.getSentAt().toInstant().plusSeconds(tokenTtlSeconds).isBefore(Instant.now())) {
             logger.warn("Token expired for email: {}", sentEmail.getEmail());
             throw new IllegalArgumentException("Token has expired");
         }
@@ -50,6 +58,8 @@ public class EmailVerificationService {
         logger.info("Marking user as verified for email: {}", user.getEmail());
         user.setEmailVerified(true);
         userRepository.save(user);
+        // The cached copy still says unverified, which EmailVerificationFilter would reject
+        userCache.invalidate(user.getEmail());
 
         sentEmail.setStatus("VERIFIED");
         sentEmailRepository.save(sentEmail);
@@ -1,33 +1,161 @@
 package com.csye6225.webapp.service;
 
+import com.csye6225.webapp.metrics.LatencyRegistry;
 import com.timgroup.statsd.StatsDClient;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dependency health is probed in the background and cached, so health endpoints answer
+ * from memory instead of running a query per load balancer poll.
+ */
 @Service
 public class HealthCheckService {
 
+    private static final Logger logger = LoggerFactory.getLogger(HealthCheckService.class);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
     private StatsDClient statsDClient;
 
-    public boolean isDatabaseConnected() {
-        // Start timer for the database connection check
-        long start = System.currentTimeMillis();
+    @Autowired
+    private LatencyRegistry latencyRegistry;
 
-        try {
-            jdbcTemplate.execute("SELECT 1");
+    @Autowired(required = false)
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private S3AsyncClient s3AsyncClient;
+
+    @Value("${aws.s3.bucket:}")
+    private String bucketName;
+
+    @Value("${health.probe.interval-ms:5000}")
+    private long probeIntervalMillis = 5000;
+
+    @Value("${health.probe.s3.enabled:false}")
+    private boolean probeS3;
+
+    @Value("${health.probe.stale-after-ms:15000}")
+    private long staleAfterMillis = 15000;
 
-            // Record execution time
-            long duration = System.currentTimeMillis() - start;
-            statsDClient.recordExecutionTime("db.isDatabaseConnected.time", duration);
+    @Value("${health.readiness.max-threads-awaiting-connection:5}")
+    private int maxThreadsAwaitingConnection = 5;
 
+    private volatile boolean databaseUp;
+    private volatile boolean s3Up = true;
+    private volatile long lastProbeAt;
+    private ScheduledExecutorService prober;
+
+    // Own thread rather than the shared @Scheduled one, so a long outbox or reconcile run cannot make the probe stale
+    @PostConstruct
+    public void start() {
+        prober = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("health-probe").daemon().factory());
+        prober.scheduleWithFixedDelay(this::probeSafely, 0, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    // Timed here rather than with @Timed, which the proxy would skip on calls from probe()
+    public boolean isDatabaseConnected() {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.execute("SELECT 1");
             return true;
         } catch (Exception e) {
             return false;
+        } finally {
+            latencyRegistry.record("db.isDatabaseConnected", System.nanoTime() - start);
+        }
+    }
+
+    public void probe() {
+        boolean db = isDatabaseConnected();
+        if (db != databaseUp) {
+            logger.warn("Database health changed to {}", db ? "UP" : "DOWN");
+        }
+        databaseUp = db;
+        statsDClient.gauge("health.db.up", db ? 1 : 0);
+
+        if (probeS3 && s3AsyncClient != null) {
+            boolean s3;
+            try {
+                // Off the request path, so waiting here is fine; bounded by the API call timeout
+                s3AsyncClient.headBucket(HeadBucketRequest.builder().bucket(bucketName).build()).join();
+                s3 = true;
+            } catch (Exception e) {
+                s3 = false;
+            }
+            s3Up = s3;
+            statsDClient.gauge("health.s3.up", s3 ? 1 : 0);
+        }
+        lastProbeAt = System.currentTimeMillis();
+    }
+
+    // An exception escaping a scheduled task would cancel every later run
+    private void probeSafely() {
+        try {
+            probe();
+        } catch (RuntimeException e) {
+            logger.error("Health probe failed", e);
+        }
+    }
+
+    // Cached DB status; a probe that has not completed recently counts as down
+    public boolean isDatabaseUp() {
+        return databaseUp && System.currentTimeMillis() - lastProbeAt <= staleAfterMillis;
+    }
+
+    // Ready to take traffic: dependencies up and the connection pool not saturated
+    public boolean isReady() {
+        return isDatabaseUp() && s3Up && !isPoolSaturated();
+    }
+
+    boolean isPoolSaturated() {
+        HikariPoolMXBean pool = hikariPool();
+        if (pool == null) {
+            return false;
+        }
+        int waiting = pool.getThreadsAwaitingConnection();
+        statsDClient.gauge("db.pool.active", pool.getActiveConnections());
+        statsDClient.gauge("db.pool.threads_awaiting", waiting);
+        return waiting > maxThreadsAwaitingConnection;
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        if (dataSource == null) {
+            return null;
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (SQLException e) {
+            logger.debug("DataSource is not a Hikari pool: {}", e.getMessage());
         }
+        return null;
     }
 }
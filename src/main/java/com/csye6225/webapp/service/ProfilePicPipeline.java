@@ -0,0 +1,287 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.ImageProcessingRejectedException;
+import com.csye6225.webapp.exception.InvalidImageException;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Stores a profile picture as its original plus fixed-size renditions. The original starts
+ * uploading right away; meanwhile the image is decoded once on the bounded processing pool,
+ * scaled down step by step (medium, then thumbnail from medium) and each rendition's upload is
+ * started as soon as it is encoded. The uploads are non-blocking, so all S3 PUTs overlap without
+ * a thread per transfer.
+ */
+@Service
+public class ProfilePicPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePicPipeline.class);
+
+    // Largest first: each rendition is scaled from the previous one
+    private static final ProfilePicSize[] RENDITIONS = {ProfilePicSize.MEDIUM, ProfilePicSize.THUMBNAIL};
+
+    @Autowired
+    private S3UploadService s3UploadService;
+
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    private LatencyRegistry latencyRegistry;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Autowired
+    @Qualifier("imageProcessingExecutor")
+    private ThreadPoolTaskExecutor imageProcessingExecutor;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    // Checked from the header before decoding, so a small file cannot expand into a huge raster
+    @Value("${profile-pic.max-pixels:40000000}")
+    private long maxPixels = 40_000_000;
+
+    @Value("${profile-pic.jpeg-quality:0.85}")
+    private float jpegQuality = 0.85f;
+
+    @Value("${profile-pic.timeout-ms:30000}")
+    private long timeoutMillis = 30000;
+
+    @Value("${profile-pic.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    // Returns once the original and every rendition are stored. On failure no PUT is still in flight;
+    // removing what was stored is left to the caller, which knows whether others share the key
+    public void store(String originalKey, byte[] original, String contentType) {
+        long start = System.nanoTime();
+        // Rendition uploads are added from the processing thread
+        List<CompletableFuture<Void>> uploads = Collections.synchronizedList(new ArrayList<>());
+        try {
+            uploads.add(upload(ProfilePicSize.ORIGINAL, originalKey, original, contentType));
+            long submitted = System.nanoTime();
+            await(submit(() -> {
+                latencyRegistry.record("profile_pic.processing.queue_wait", System.nanoTime() - submitted);
+                render(originalKey, original, uploads);
+                return null;
+            }));
+            await(CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)));
+        } catch (RuntimeException e) {
+            // Let in-flight PUTs settle first, or one finishing after a cleanup would leave an orphan
+            settle(uploads);
+            throw e;
+        }
+        latencyRegistry.record("profile_pic.store", System.nanoTime() - start);
+    }
+
+    // Deletes the original and, for pictures stored with renditions, every rendition in parallel
+    public void delete(String originalKey, boolean withRenditions) {
+        List<CompletableFuture<Void>> deletes = new ArrayList<>();
+        for (ProfilePicSize size : ProfilePicSize.values()) {
+            if (size == ProfilePicSize.ORIGINAL || withRenditions) {
+                DeleteObjectRequest request = DeleteObjectRequest.builder().bucket(bucketName).key(size.key(originalKey)).build();
+                deletes.add(s3AsyncClient.deleteObject(request).thenApply(response -> null));
+            }
+        }
+        await(CompletableFuture.allOf(deletes.toArray(CompletableFuture[]::new)));
+    }
+
+    // Runs on the processing pool; renditions keep the format found in the file, not the declared one
+    private void render(String originalKey, byte[] original, List<CompletableFuture<Void>> uploads) {
+        Decoded decoded = timed("profile_pic.decode", () -> decode(original));
+        String contentType = "image/" + decoded.format();
+
+        BufferedImage source = decoded.image();
+        for (ProfilePicSize size : RENDITIONS) {
+            BufferedImage previous = source;
+            BufferedImage scaled = timed("profile_pic.resize." + size.paramValue(),
+                    () -> scale(previous, size.getMaxDimension()));
+            // Only a full-resolution decode can be unchanged here (a subsampled one is always scaled)
+            byte[] bytes = scaled == decoded.image() ? original
+                    : timed("profile_pic.encode." + size.paramValue(), () -> encode(scaled, decoded.format()));
+            uploads.add(upload(size, size.key(originalKey), bytes, contentType));
+            source = scaled;
+        }
+    }
+
+    private CompletableFuture<Void> upload(ProfilePicSize size, String key, byte[] data, String contentType) {
+        long start = System.nanoTime();
+        return s3UploadService.upload(key, data, contentType).whenComplete((result, error) -> {
+            latencyRegistry.record("profile_pic.upload." + size.paramValue(), System.nanoTime() - start);
+            if (error == null) {
+                statsDClient.count("profile_pic.upload.bytes." + size.paramValue(), data.length);
+            }
+        });
+    }
+
+    private Decoded decode(byte[] data) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new InvalidImageException("Not a PNG or JPEG image");
+            }
+            ImageReader reader = readers.next();
+            try {
+                String format = reader.getFormatName().toLowerCase();
+                if (!format.equals("png") && !format.equals("jpeg")) {
+                    throw new InvalidImageException("Unsupported image format " + format);
+                }
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new InvalidImageException("Image is " + width + "x" + height + ", above " + maxPixels + " pixels");
+                }
+                // Decode at no more than about twice the largest rendition; the full raster is never needed
+                int subsampling = Math.max(1, Math.max(width, height) / (2 * RENDITIONS[0].getMaxDimension()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return new Decoded(reader.read(0, param), format);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new InvalidImageException("Could not decode image", e);
+        }
+    }
+
+    // Fits the image within maxDimension x maxDimension, halving first so no pass skips source pixels
+    static BufferedImage scale(BufferedImage image, int maxDimension) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (width <= maxDimension && height <= maxDimension) {
+            return image;
+        }
+        double ratio = (double) maxDimension / Math.max(width, height);
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image, String format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (format.equals("png")) {
+                ImageIO.write(image, "png", out);
+                return out.toByteArray();
+            }
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, imageProcessingExecutor);
+        } catch (TaskRejectedException e) {
+            statsDClient.incrementCounter("profile_pic.processing.rejected");
+            throw new ImageProcessingRejectedException("Profile picture processing capacity exhausted", retryAfterSeconds, e);
+        }
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing profile picture", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Profile picture processing timed out", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Profile picture processing failed", e.getCause());
+        }
+    }
+
+    private void settle(List<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Profile picture upload did not complete cleanly: {}", e.getMessage());
+        }
+    }
+
+    private <T> T timed(String name, Supplier<T> stage) {
+        long start = System.nanoTime();
+        try {
+            return stage.get();
+        } finally {
+            latencyRegistry.record(name, System.nanoTime() - start);
+        }
+    }
+
+    private record Decoded(BufferedImage image, String format) {
+    }
+}
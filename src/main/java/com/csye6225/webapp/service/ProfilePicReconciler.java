@@ -0,0 +1,118 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Optional background check that the S3 objects referenced by users.profile_pic_url still
+ * exist, clearing dangling references. Keeps existence checks off the request path.
+ */
+@Component
+@ConditionalOnProperty(name = "profile-pic.reconcile.enabled", havingValue = "true")
+public class ProfilePicReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePicReconciler.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ProfilePicStore profilePicStore;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    @Value("${profile-pic.reconcile.page-size:100}")
+    private int pageSize = 100;
+
+    @Scheduled(initialDelayString = "${profile-pic.reconcile.interval-ms:3600000}",
+            fixedDelayString = "${profile-pic.reconcile.interval-ms:3600000}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        int checked = 0;
+        int cleared = 0;
+
+        try {
+            // Keyset paging by id, so clearing references does not shift later pages
+            long lastId = 0;
+            Slice<User> page;
+            do {
+                page = userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, pageSize));
+                // The whole page is checked concurrently over the shared connection pool
+                List<CompletableFuture<Boolean>> exists = new ArrayList<>();
+                for (User user : page) {
+                    exists.add(exists(user.getProfilePicUrl()));
+                }
+                int index = 0;
+                for (User user : page) {
+                    lastId = user.getId();
+                    checked++;
+                    String key = user.getProfilePicUrl();
+                    if (!exists.get(index++).join()) {
+                        // Conditional on the key read for the page, so an edit, delete or new upload made while
+                        // the HEAD checks ran is neither overwritten nor released a second time
+                        if (userRepository.clearProfilePic(user.getEmail(), key,
+                                LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)) == 0) {
+                            continue;
+                        }
+                        logger.warn("Cleared dangling profile picture reference for user {}", user.getId());
+                        userCache.invalidate(user.getEmail());
+                        // Drop the reference too, so new uploads of this content are not deduplicated against a missing object
+                        profilePicStore.release(key, Boolean.TRUE.equals(user.getProfilePicRenditions()));
+                        cleared++;
+                    }
+                }
+            } while (page.hasNext());
+        } catch (Exception e) {
+            logger.error("Profile picture reconciliation failed: {}", e.getMessage());
+        }
+
+        statsDClient.count("aws.s3.reconcile.checked", checked);
+        statsDClient.count("aws.s3.reconcile.cleared", cleared);
+        statsDClient.recordExecutionTime("aws.s3.reconcile.time", System.currentTimeMillis() - start);
+    }
+
+    // Only a 404 means missing; any other failure aborts the run rather than clearing references
+    private CompletableFuture<Boolean> exists(String key) {
+        return s3AsyncClient.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build())
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return true;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof S3Exception s3Exception && s3Exception.statusCode() == 404) {
+                        return false;
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+}
@@ -0,0 +1,46 @@
+package com.csye6225.webapp.service;
+
+import java.util.Locale;
+
+/**
+ * Stored sizes of a profile picture. Renditions fit within a square of maxDimension pixels
+ * (aspect ratio kept, never upscaled) and live next to the original under a predictable key:
+ * {directory}/{size}/{name} for an original stored at {directory}/{name}.
+ */
+public enum ProfilePicSize {
+    ORIGINAL(0),
+    MEDIUM(512),
+    THUMBNAIL(128);
+
+    private final int maxDimension;
+
+    ProfilePicSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public String paramValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    // Returns null for values that are not a known size
+    public static ProfilePicSize fromParam(String value) {
+        for (ProfilePicSize size : values()) {
+            if (size.paramValue().equals(value)) {
+                return size;
+            }
+        }
+        return null;
+    }
+
+    public String key(String originalKey) {
+        if (this == ORIGINAL) {
+            return originalKey;
+        }
+        int slash = originalKey.lastIndexOf('/');
+        return originalKey.substring(0, slash + 1) + paramValue() + originalKey.substring(slash);
+    }
+}
@@ -0,0 +1,158 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.ImageProcessingRejectedException;
+import com.csye6225.webapp.model.ProfilePicObject;
+import com.csye6225.webapp.repository.ProfilePicObjectRepository;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HexFormat;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Content-addressed profile picture storage. Pictures are keyed by the SHA-256 of the original
+ * bytes and reference-counted in profile_pic_objects, so identical uploads share one set of S3
+ * objects: a known digest skips decoding and every PUT, and the objects are only deleted when
+ * the last user referencing them lets go.
+ *
+ * The original is held in memory from the first byte read until it is stored: the key is only
+ * known once the whole body has been hashed, and the renditions need a full decode anyway. The
+ * number of uploads buffered at once is therefore capped, and uploads over the cap get 503.
+ */
+@Service
+public class ProfilePicStore {
+
+    public static final String KEY_PREFIX = "profile-pictures/sha256/";
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfilePicStore.class);
+
+    @Autowired
+    private ProfilePicObjectRepository profilePicObjectRepository;
+
+    @Autowired
+    private ProfilePicPipeline profilePicPipeline;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    // Up to the upload size limit each, so this bounds the heap taken by picture bodies
+    @Value("${profile-pic.max-buffered-uploads:16}")
+    private int maxBufferedUploads = 16;
+
+    @Value("${profile-pic.retry-after-seconds:1}")
+    private long retryAfterSeconds = 1;
+
+    private Semaphore bufferedUploads;
+
+    record HashedPicture(String key, byte[] original) {
+    }
+
+    @PostConstruct
+    void init() {
+        bufferedUploads = new Semaphore(maxBufferedUploads);
+    }
+
+    // Reads, hashes and stores (or references) the picture; returns its key, or null if the body is short
+    public String store(InputStream inputStream, long contentLength, String contentType) throws IOException {
+        if (!bufferedUploads.tryAcquire()) {
+            statsDClient.incrementCounter("profile_pic.upload.rejected");
+            throw new ImageProcessingRejectedException("Too many profile picture uploads in progress", retryAfterSeconds, null);
+        }
+        try {
+            HashedPicture picture = read(inputStream, contentLength);
+            if (picture == null) {
+                return null;
+            }
+            acquire(picture, contentType);
+            return picture.key();
+        } finally {
+            bufferedUploads.release();
+        }
+    }
+
+    // Reads exactly contentLength bytes, hashing them as they are read; returns null if the body is shorter
+    HashedPicture read(InputStream inputStream, long contentLength) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] original = new DigestInputStream(inputStream, digest).readNBytes((int) contentLength);
+        if (original.length != contentLength) {
+            return null;
+        }
+        return new HashedPicture(KEY_PREFIX + HexFormat.of().formatHex(digest.digest()), original);
+    }
+
+    // Adds a reference to the picture, storing it (original and renditions) unless it is already in S3
+    void acquire(HashedPicture picture, String contentType) {
+        String key = picture.key();
+        Boolean stored = transactionTemplate.execute(status -> {
+            profilePicObjectRepository.insertIfAbsent(key, new Timestamp(System.currentTimeMillis()));
+            ProfilePicObject object = profilePicObjectRepository.lockByKey(key);
+            object.setRefCount(object.getRefCount() + 1);
+            return object.isStored();
+        });
+        if (Boolean.TRUE.equals(stored)) {
+            statsDClient.incrementCounter("profile_pic.dedup.hit");
+            return;
+        }
+        statsDClient.incrementCounter("profile_pic.dedup.miss");
+
+        try {
+            profilePicPipeline.store(key, picture.original(), contentType);
+        } catch (RuntimeException e) {
+            release(key);
+            throw e;
+        }
+        profilePicObjectRepository.markStored(key);
+    }
+
+    // Drops a reference; the last one deletes the S3 objects. Pictures stored before content
+    // addressing have no row and are deleted directly
+    public void release(String key, boolean withRenditions) {
+        if (!key.startsWith(KEY_PREFIX)) {
+            profilePicPipeline.delete(key, withRenditions);
+            return;
+        }
+        release(key);
+    }
+
+    private void release(String key) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProfilePicObject object = profilePicObjectRepository.lockByKey(key);
+            if (object == null) {
+                logger.warn("No reference count for profile picture {}", key);
+                return;
+            }
+            if (object.getRefCount() > 1) {
+                object.setRefCount(object.getRefCount() - 1);
+                return;
+            }
+            // Deleted while the row is locked, so a concurrent upload of the same content either
+            // added its reference first (and we never get here) or starts over once the row is gone
+            profilePicPipeline.delete(key, true);
+            profilePicObjectRepository.delete(object);
+            statsDClient.incrementCounter("profile_pic.object.deleted");
+        });
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
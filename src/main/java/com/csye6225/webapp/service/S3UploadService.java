@@ -0,0 +1,66 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Non-blocking uploads to S3: the returned future completes when the object is stored, and no
+ * thread waits on the network meanwhile. Objects above the multipart threshold are split into
+ * parts by the client (see AwsConfig).
+ */
+@Service
+public class S3UploadService {
+
+    @Autowired
+    private S3AsyncClient s3AsyncClient;
+
+    @Autowired
+    private LatencyRegistry latencyRegistry;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${aws.s3.bucket}")
+    private String bucketName;
+
+    private final AtomicLong bytesInFlight = new AtomicLong();
+
+    // The data must not change until the future completes; it is sent without a defensive copy
+    public CompletableFuture<Void> upload(String key, byte[] data, String contentType) {
+        long start = System.nanoTime();
+        statsDClient.gauge("aws.s3.upload.bytes_in_flight", bytesInFlight.addAndGet(data.length));
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .contentLength((long) data.length)
+                .build();
+        return s3AsyncClient.putObject(request, AsyncRequestBody.fromBytesUnsafe(data))
+                .whenComplete((response, error) -> {
+                    long nanos = System.nanoTime() - start;
+                    statsDClient.gauge("aws.s3.upload.bytes_in_flight", bytesInFlight.addAndGet(-data.length));
+                    latencyRegistry.record("aws.s3.upload", nanos);
+                    if (error == null) {
+                        statsDClient.count("aws.s3.upload.bytes", data.length);
+                        long millis = nanos / 1_000_000;
+                        if (millis > 0) {
+                            statsDClient.gauge("aws.s3.upload.throughput_bytes_per_sec", data.length * 1000L / millis);
+                        }
+                    }
+                })
+                .thenApply(response -> null);
+    }
+
+    public long getBytesInFlight() {
+        return bytesInFlight.get();
+    }
+}
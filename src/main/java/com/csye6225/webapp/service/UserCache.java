@@ -0,0 +1,144 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.messaging.CacheInvalidationPublisher;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.timgroup.statsd.StatsDClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-based cache of user rows keyed by email (the natural id), so authentication and
+ * GET /v1/user/self in steady state are served from memory. Every write path that changes a
+ * cached column or accountUpdated calls invalidate; unknown emails are never cached.
+ */
+@Component
+public class UserCache {
+
+    private final UserRepository userRepository;
+    private final StatsDClient statsDClient;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation; a load that overlapped one is returned but not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserCache(UserRepository userRepository, StatsDClient statsDClient,
+                     CacheInvalidationPublisher invalidationPublisher,
+                     @Value("${user.cache.enabled:true}") boolean enabled,
+                     @Value("${user.cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${user.cache.max-size:10000}") int maxSize) {
+        this.userRepository = userRepository;
+        this.statsDClient = statsDClient;
+        this.invalidationPublisher = invalidationPublisher;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxSize = maxSize;
+    }
+
+    // Returns null if no user has this email
+    public UserSnapshot get(String email) {
+        if (!enabled) {
+            return userRepository.findSnapshotByEmail(email);
+        }
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt >= System.currentTimeMillis()) {
+            hits.increment();
+            statsDClient.incrementCounter("user.cache.hit");
+            return entry.user;
+        }
+        misses.increment();
+        statsDClient.incrementCounter("user.cache.miss");
+
+        long generation = invalidations.get();
+        UserSnapshot user = userRepository.findSnapshotByEmail(email);
+        if (user != null) {
+            put(email, user, generation);
+        }
+        return user;
+    }
+
+    // Called after a local write: drops the entry here and on every other instance
+    public void invalidate(String email) {
+        evict(email);
+        invalidationPublisher.publish(email);
+    }
+
+    // Local only; used for invalidations received from other instances
+    public void evict(String email) {
+        invalidations.incrementAndGet();
+        if (entries.remove(email) != null) {
+            statsDClient.incrementCounter("user.cache.invalidation");
+        }
+    }
+
+    public void evictAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Hit ratio over the last interval as a percentage, next to the raw hit/miss counters
+    @Scheduled(fixedDelayString = "${metrics.export-interval-ms:10000}")
+    public void exportStats() {
+        long hitCount = hits.sumThenReset();
+        long missCount = misses.sumThenReset();
+        if (hitCount + missCount > 0) {
+            statsDClient.gauge("user.cache.hit_ratio", hitCount * 100 / (hitCount + missCount));
+        }
+        statsDClient.gauge("user.cache.size", entries.size());
+    }
+
+    private void put(String email, UserSnapshot user, long generation) {
+        if (entries.size() >= maxSize && !entries.containsKey(email)) {
+            evict();
+        }
+        Entry entry = new Entry(user, System.currentTimeMillis() + ttlMillis);
+        entries.put(email, entry);
+        // An update committed while we were loading; what we read may predate it
+        if (invalidations.get() != generation) {
+            entries.remove(email, entry);
+        }
+    }
+
+    // Drop expired entries first; if still full, drop arbitrary entries until there is room
+    private void evict() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expiresAt < now) {
+                it.remove();
+                evicted++;
+            }
+        }
+        it = entries.entrySet().iterator();
+        while (entries.size() >= maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evicted++;
+        }
+        if (evicted > 0) {
+            statsDClient.count("user.cache.eviction", evicted);
+        }
+    }
+
+    private record Entry(UserSnapshot user, long expiresAt) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.dto.BulkUserResponseDto;
+import com.csye6225.webapp.dto.BulkUserResultDto;
+import com.csye6225.webapp.dto.UserRequestDto;
+import com.csye6225.webapp.exception.PasswordHashingRejectedException;
+import com.csye6225.webapp.model.OutboxMessage;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.BoundedBCryptPasswordEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Creates users in bulk: rows are validated individually, passwords are hashed in parallel
+ * on part of the bounded hashing pool before any connection is taken, and the accepted rows
+ * are inserted in one transaction using JDBC batches.
+ */
+@Service
+public class UserProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProvisioningService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private BoundedBCryptPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    // Share of the hashing pool one bulk request may occupy; the rest stays free for logins and signups
+    @Value("${user.bulk.hash-pool-share:0.5}")
+    private double hashPoolShare = 0.5;
+
+    public BulkUserResponseDto createUsers(List<UserRequestDto> requests) {
+        logger.info("Provisioning {} users", requests.size());
+        BulkUserResultDto[] results = new BulkUserResultDto[requests.size()];
+
+        List<Integer> accepted = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UserRequestDto request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = new BulkUserResultDto(i, request == null ? null : request.getEmail(),
+                        BulkUserResultDto.STATUS_INVALID, null, error);
+            } else if (!seen.add(request.getEmail())) {
+                results[i] = conflict(i, request.getEmail(), "Duplicate email in batch.");
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        // Skip hashing for accounts that already exist
+        accepted = withoutExisting(requests, accepted, results);
+
+        String[] hashes = hashPasswords(requests, accepted);
+
+        List<BulkUserResultDto> created;
+        try {
+            created = insert(requests, accepted, hashes, results);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent signup took one of the emails; the retry re-checks existence inside the transaction
+            logger.warn("Bulk insert hit a concurrent signup, retrying: {}", e.getMessage());
+            created = insert(requests, accepted, hashes, results);
+        }
+        for (BulkUserResultDto result : created) {
+            results[result.getIndex()] = result;
+        }
+
+        BulkUserResponseDto response = new BulkUserResponseDto(Arrays.asList(results));
+        statsDClient.count("api.user.bulk.created", response.getCreated());
+        statsDClient.count("api.user.bulk.conflicts", response.getConflicts());
+        statsDClient.count("api.user.bulk.invalid", response.getInvalid());
+        logger.info("Provisioned {} users ({} conflicts, {} invalid)",
+                response.getCreated(), response.getConflicts(), response.getInvalid());
+        return response;
+    }
+
+    private String validate(UserRequestDto request) {
+        if (request == null) {
+            return "User is missing.";
+        }
+        Set<ConstraintViolation<UserRequestDto>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private List<Integer> withoutExisting(List<UserRequestDto> requests, List<Integer> rows, BulkUserResultDto[] results) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        Set<String> existing = userRepository.findExistingEmails(
+                rows.stream().map(i -> requests.get(i).getEmail()).toList());
+        List<Integer> remaining = new ArrayList<>();
+        for (int i : rows) {
+            String email = requests.get(i).getEmail();
+            if (existing.contains(email)) {
+                results[i] = conflict(i, email, "User with this email already exists.");
+            } else {
+                remaining.add(i);
+            }
+        }
+        return remaining;
+    }
+
+    // A few pool tasks pulling rows from a shared cursor, so a large batch never floods the queue
+    private String[] hashPasswords(List<UserRequestDto> requests, List<Integer> rows) {
+        String[] hashes = new String[requests.size()];
+        int workers = Math.min(maxHashWorkers(), rows.size());
+        AtomicInteger cursor = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            try {
+                futures.add(passwordEncoder.submit(() -> {
+                    int next;
+                    while ((next = cursor.getAndIncrement()) < rows.size()) {
+                        int row = rows.get(next);
+                        hashes[row] = passwordEncoder.encode(requests.get(row).getPassword());
+                    }
+                    return null;
+                }));
+            } catch (PasswordHashingRejectedException e) {
+                // Pool busy with other requests: the workers already admitted drain the cursor
+                if (futures.isEmpty()) {
+                    throw e;
+                }
+                break;
+            }
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+        return hashes;
+    }
+
+    int maxHashWorkers() {
+        return Math.max(1, (int) (passwordEncoder.getPoolSize() * hashPoolShare));
+    }
+
+    private List<BulkUserResultDto> insert(List<UserRequestDto> requests, List<Integer> rows, String[] hashes,
+                                           BulkUserResultDto[] results) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        return transactionTemplate.execute(status -> {
+            List<Integer> remaining = withoutExisting(requests, rows, results);
+
+            List<User> users = new ArrayList<>(remaining.size());
+            List<OutboxMessage> messages = new ArrayList<>(remaining.size());
+            for (int i : remaining) {
+                UserRequestDto request = requests.get(i);
+                User user = new User();
+                user.setEmail(request.getEmail());
+                user.setFirstName(request.getFirstName());
+                user.setLastName(request.getLastName());
+                user.setPassword(hashes[i]);
+                users.add(user);
+                // Serialized, not concatenated: the address is user input and must come out as valid JSON
+                messages.add(new OutboxMessage(objectMapper.createObjectNode().put("email", request.getEmail()).toString()));
+            }
+
+            userRepository.saveAll(users);
+            outboxMessageRepository.saveAll(messages);
+            userRepository.flush();
+
+            List<BulkUserResultDto> created = new ArrayList<>(users.size());
+            for (int n = 0; n < users.size(); n++) {
+                User user = users.get(n);
+                created.add(new BulkUserResultDto(remaining.get(n), user.getEmail(),
+                        BulkUserResultDto.STATUS_CREATED, user.getId(), null));
+            }
+            return created;
+        });
+    }
+
+    private static BulkUserResultDto conflict(int index, String email, String message) {
+        return new BulkUserResultDto(index, email, BulkUserResultDto.STATUS_CONFLICT, null, message);
+    }
+}
@@ -1,31 +1,45 @@
 package com.csye6225.webapp.service;
 
-import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.model.DeleteObjectRequest;
-import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.csye6225.webapp.dto.ProfilePicResponseDto;
+import com.csye6225.webapp.dto.UserPatchRequestDto;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
 import com.csye6225.webapp.exception.UserAlreadyExistsException;
+import com.csye6225.webapp.model.OutboxMessage;
 import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.csye6225.webapp.repository.UserProfileView;
 import com.csye6225.webapp.repository.UserRepository;
-import com.timgroup.statsd.StatsDClient;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.csye6225.webapp.security.AuthenticatedUser;
+import com.csye6225.webapp.security.CredentialCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.services.sns.SnsClient;
-import software.amazon.awssdk.services.sns.model.PublishRequest;
-import software.amazon.awssdk.services.sns.model.PublishResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.util.UUID;
 
 @Service
@@ -40,26 +54,40 @@ public class UserService {
     private BCryptPasswordEncoder passwordEncoder;
 
     @Autowired
-    private StatsDClient statsDClient;
+    private S3Presigner s3Presigner;
 
     @Autowired
-    private AmazonS3 amazonS3;
+    private ProfilePicStore profilePicStore;
+
+    @Autowired
+    private CredentialCache credentialCache;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Value("${aws.s3.bucket}")
     private String bucketName;
 
+    @Value("${profile-pic.url-ttl-seconds:300}")
+    private long profilePicUrlTtlSeconds = 300;
+
+    @Value("${profile-pic.redirect:false}")
+    private boolean profilePicRedirect;
+
+    @Transactional
     public UserResponseDto createUser(UserRequestDto userRequestDto) {
-        long startExists = System.currentTimeMillis();
         logger.info("Attempting to create user with email: {}", userRequestDto.getEmail());
 
         if (userRepository.existsByEmail(userRequestDto.getEmail())) {
-            long durationExists = System.currentTimeMillis() - startExists;
-            statsDClient.recordExecutionTime("db.userRepository.existsByEmail.time", durationExists);
             logger.warn("User with email {} already exists", userRequestDto.getEmail());
             throw new UserAlreadyExistsException("User with this email already exists.");
         }
-        long durationExists = System.currentTimeMillis() - startExists;
-        statsDClient.recordExecutionTime("db.userRepository.existsByEmail.time", durationExists);
 
         User user = new User();
         user.setEmail(userRequestDto.getEmail());
@@ -67,45 +95,47 @@ public class UserService {
         user.setLastName(userRequestDto.getLastName());
         user.setPassword(passwordEncoder.encode(userRequestDto.getPassword()));
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+        // Flush so the INSERT runs now and the generated timestamps are populated for the response
+        userRepository.saveAndFlush(user);
         logger.info("User with email {} created successfully", userRequestDto.getEmail());
 
-        // Publish to SNS Topic
-        try (SnsClient snsClient = SnsClient.create()) {
-            logger.info("Publishing message to SNS topic for user verification");
-            PublishRequest publishRequest = PublishRequest.builder()
-                    .topicArn(System.getenv("SNS_TOPIC_ARN"))
-                    .message("{\"email\": \"" + userRequestDto.getEmail() + "\"}")
-                    .build();
-            PublishResponse response = snsClient.publish(publishRequest);
-            logger.info("SNS message published successfully. Message ID: {}", response.messageId());
-        } catch (Exception e) {
-            logger.error("Failed to publish message to SNS topic: {}", e.getMessage());
-            throw new RuntimeException("Error sending email verification message.");
-        }
+        // Queue the verification message in the same transaction; OutboxDispatcher publishes it to SNS
+        outboxMessageRepository.save(new OutboxMessage(
+                objectMapper.createObjectNode().put("email", userRequestDto.getEmail()).toString()));
+        logger.info("Queued email verification message for user with email: {}", userRequestDto.getEmail());
 
         return mapToUserResponseDto(user);
     }
 
     public UserResponseDto getUserByEmail(String email) {
-        long startFind = System.currentTimeMillis();
         logger.info("Fetching user with email: {}", email);
 
-        User user = userRepository.findByEmail(email);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
+        UserSnapshot user = userCache.get(email);
 
         if (user == null) {
             logger.warn("User with email {} not found", email);
         }
 
-        return mapToUserResponseDto(user);
+        return mapToUserResponseDto(user.profile());
+    }
+
+    // Usually the same cached row authentication just used; the 304 path never gets here
+    public UserResponseDto getUserDetails(AuthenticatedUser principal) {
+        return mapToUserResponseDto(userCache.get(principal.getEmail()).profile());
     }
 
-    private UserResponseDto mapToUserResponseDto(User user) {
+    // Strong validator for /v1/user/self; accountUpdated moves on every change to the row
+    public String userEtag(AuthenticatedUser principal) {
+        return userEtag(principal.getId(), principal.getAccountUpdated());
+    }
+
+    public String userEtag(Long id, LocalDateTime accountUpdated) {
+        long micros = accountUpdated.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + accountUpdated.getNano() / 1_000;
+        return "\"" + id + "-" + Long.toHexString(micros) + "\"";
+    }
+
+    // Package-private so the JMH benchmarks can measure it directly
+    UserResponseDto mapToUserResponseDto(User user) {
         UserResponseDto userResponseDto = new UserResponseDto();
         userResponseDto.setId(user.getId());
         userResponseDto.setEmail(user.getEmail());
@@ -117,30 +147,71 @@ public class UserService {
         return userResponseDto;
     }
 
+    UserResponseDto mapToUserResponseDto(UserProfileView profile) {
+        UserResponseDto userResponseDto = new UserResponseDto();
+        userResponseDto.setId(profile.id());
+        userResponseDto.setEmail(profile.email());
+        userResponseDto.setFirstName(profile.firstName());
+        userResponseDto.setLastName(profile.lastName());
+        userResponseDto.setAccountCreated(profile.accountCreated().toString());
+        userResponseDto.setAccountUpdated(profile.accountUpdated().toString());
+
+        return userResponseDto;
+    }
+
     public void updateUser(String email, UserUpdateRequestDto userUpdateRequestDto) {
-        long startFind = System.currentTimeMillis();
         logger.info("Updating user with email: {}", email);
 
-        User user = userRepository.findByEmail(email);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
+        // Same single UPDATE as PATCH, so a concurrent picture upload is never overwritten by a stale entity
+        applyUpdate(email, userUpdateRequestDto.getFirstName(), userUpdateRequestDto.getLastName(),
+                passwordEncoder.encode(userUpdateRequestDto.getPassword()));
 
-        user.setFirstName(userUpdateRequestDto.getFirstName());
-        user.setLastName(userUpdateRequestDto.getLastName());
-        user.setPassword(passwordEncoder.encode(userUpdateRequestDto.getPassword()));
-
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+        // Drop any cached verification of the old password
+        credentialCache.invalidate(email);
         logger.info("User with email {} updated successfully", email);
     }
 
+    // Applies only the supplied fields; BCrypt runs only when a new password is present.
+    // Returns the new accountUpdated, or null if the user no longer exists
+    public LocalDateTime patchUser(String email, UserPatchRequestDto userPatchRequestDto) {
+        logger.info("Patching user with email: {}", email);
+
+        String passwordHash = userPatchRequestDto.getPassword() == null
+                ? null : passwordEncoder.encode(userPatchRequestDto.getPassword());
+
+        LocalDateTime accountUpdated = applyUpdate(email, userPatchRequestDto.getFirstName(),
+                userPatchRequestDto.getLastName(), passwordHash);
+
+        if (passwordHash != null) {
+            credentialCache.invalidate(email);
+        }
+        return accountUpdated;
+    }
+
+    private LocalDateTime applyUpdate(String email, String firstName, String lastName, String passwordHash) {
+        // Truncated to the column precision so it matches later reads (and the ETag built from them)
+        LocalDateTime accountUpdated = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = userRepository.updateProfile(email, firstName, lastName, passwordHash, accountUpdated);
+        // After the commit, so a concurrent miss cannot cache the row as it was before
+        userCache.invalidate(email);
+        if (updated == 0) {
+            logger.warn("User with email {} not found for update", email);
+            return null;
+        }
+        return accountUpdated;
+    }
+
     public ResponseEntity<ProfilePicResponseDto> uploadProfilePic(String userEmail, MultipartFile file) throws IOException {
-        long startFind = System.currentTimeMillis();
+        try (InputStream inputStream = file.getInputStream()) {
+            return uploadProfilePic(userEmail, inputStream, file.getSize(), file.getContentType(), file.getOriginalFilename());
+        }
+    }
+
+    // Reads and hashes the picture once into a buffer (bounded by the upload size limit and the
+    // number of uploads in progress); identical content is stored once
+    public ResponseEntity<ProfilePicResponseDto> uploadProfilePic(String userEmail, InputStream inputStream, long contentLength,
+                                                                  String contentType, String fileName) throws IOException {
         User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
         if (user.getProfilePicUrl() != null) {
             logger.warn("User with email {} already has a profile picture", userEmail);
@@ -150,90 +221,114 @@ public class UserService {
         logger.info("Uploading profile picture for user with email: {}", userEmail);
 
         // Check file content type
-        String contentType = file.getContentType();
         if (contentType == null ||
                 (!contentType.equals("image/png") && !contentType.equals("image/jpeg") && !contentType.equals("image/jpg"))) {
             logger.warn("Invalid file type: {}", contentType);
             return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
         }
 
-        String fileName = file.getOriginalFilename();
-        String key = "profile-pictures/" + user.getId() + "/" + fileName;
         String uniqueId = UUID.randomUUID().toString();
 
-        long startS3Put = System.currentTimeMillis();
-        amazonS3.putObject(new PutObjectRequest(bucketName, key, file.getInputStream(), null));
-        long durationS3Put = System.currentTimeMillis() - startS3Put;
-        statsDClient.recordExecutionTime("aws.s3.putObject.time", durationS3Put);
-
-        user.setProfilePicUrl(key);
+        String key = profilePicStore.store(inputStream, contentLength, contentType);
+        if (key == null) {
+            logger.warn("Profile picture body shorter than its declared length {}", contentLength);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+        int updated;
+        try {
+            updated = userRepository.setProfilePicIfAbsent(userEmail, key, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        } catch (RuntimeException e) {
+            profilePicStore.release(key, true);
+            throw e;
+        }
+        if (updated == 0) {
+            // A concurrent upload set its picture first; give back the reference this one took
+            profilePicStore.release(key, true);
+            logger.warn("User with email {} already has a profile picture", userEmail);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        // The update moved accountUpdated, so the cached copy would serve a stale ETag
+        userCache.invalidate(userEmail);
 
         logger.info("Profile picture uploaded successfully for user: {}", userEmail);
 
-        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(fileName, uniqueId, amazonS3.getUrl(bucketName, key).toString(), LocalDate.now(), user.getId().toString());
+        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(fileName, uniqueId, presignedUrl(key).toString(), LocalDate.now(), user.getId().toString());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
     public ResponseEntity<?> deleteProfilePic(String userEmail) {
-        long startFind = System.currentTimeMillis();
         User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
         String key = user.getProfilePicUrl();
 
-        if (key == null || !amazonS3.doesObjectExist(bucketName, key)) {
+        // The DB is the source of truth; deleteObject is idempotent so no existence check is needed
+        if (key == null) {
             logger.warn("No profile picture found for user with email: {}", userEmail);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
         logger.info("Deleting profile picture for user with email: {}", userEmail);
 
-        long startS3Delete = System.currentTimeMillis();
-        amazonS3.deleteObject(new DeleteObjectRequest(bucketName, key));
-        long durationS3Delete = System.currentTimeMillis() - startS3Delete;
-        statsDClient.recordExecutionTime("aws.s3.deleteObject.time", durationS3Delete);
-
-        user.setProfilePicUrl(null);
+        // Only the request that clears the reference releases it, so concurrent deletes drop one reference
+        if (userRepository.clearProfilePic(userEmail, key, LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)) == 0) {
+            logger.warn("Profile picture for user with email {} was already removed", userEmail);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        userCache.invalidate(userEmail);
 
-        long startSave = System.currentTimeMillis();
-        userRepository.save(user);
-        long durationSave = System.currentTimeMillis() - startSave;
-        statsDClient.recordExecutionTime("db.userRepository.save.time", durationSave);
+        // Content shared with other users stays in S3 until its last reference is released
+        profilePicStore.release(key, Boolean.TRUE.equals(user.getProfilePicRenditions()));
 
         logger.info("Profile picture deleted successfully for user: {}", userEmail);
 
         return ResponseEntity.noContent().build();
     }
 
-    public ResponseEntity<?> getProfilePic(String userEmail) {
-        long startFind = System.currentTimeMillis();
+    public ResponseEntity<?> getProfilePic(String userEmail, ProfilePicSize size, WebRequest webRequest) {
         User user = userRepository.findByEmail(userEmail);
-        long durationFind = System.currentTimeMillis() - startFind;
-        statsDClient.recordExecutionTime("db.userRepository.findByEmail.time", durationFind);
 
-        String key = user.getProfilePicUrl();
+        String originalKey = user.getProfilePicUrl();
 
-        if (key == null || !amazonS3.doesObjectExist(bucketName, key)) {
+        // Served from the DB reference alone: signing the URL is local, so no S3 call is made
+        if (originalKey == null) {
             logger.warn("No profile picture found for user with email: {}", userEmail);
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
 
+        // Pictures uploaded before renditions existed only have the original
+        String key = Boolean.TRUE.equals(user.getProfilePicRenditions()) ? size.key(originalKey) : originalKey;
+
         logger.info("Profile picture found for user with email: {}", userEmail);
 
-        long startS3GetUrl = System.currentTimeMillis();
-        String url = amazonS3.getUrl(bucketName, key).toString();
-        long durationS3GetUrl = System.currentTimeMillis() - startS3GetUrl;
-        statsDClient.recordExecutionTime("aws.s3.getUrl.time", durationS3GetUrl);
+        if (!profilePicRedirect && webRequest.checkNotModified(profilePicEtag(user.getId(), key))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        URL url = presignedUrl(key);
+
+        if (profilePicRedirect) {
+            return ResponseEntity.status(HttpStatus.FOUND).header(HttpHeaders.LOCATION, url.toString()).build();
+        }
+
+        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(key, user.getId().toString(), url.toString(), LocalDate.now(), user.getId().toString());
 
-        ProfilePicResponseDto responseDto = new ProfilePicResponseDto(user.getProfilePicUrl(), user.getId().toString(), url, LocalDate.now(), user.getId().toString());
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(responseDto);
+    }
+
+    // The cached body carries a pre-signed URL, so the tag also rolls over every half TTL: a 304
+    // only confirms a URL issued in the current window, which still has at least half its lifetime left
+    private String profilePicEtag(Long userId, String key) {
+        long window = System.currentTimeMillis() / Math.max(1, profilePicUrlTtlSeconds * 500);
+        return "\"" + userId + "-" + Integer.toHexString(key.hashCode()) + "-" + Long.toHexString(window) + "\"";
+    }
 
-        return ResponseEntity.ok(responseDto);
+    private URL presignedUrl(String key) {
+        GetObjectPresignRequest request = GetObjectPresignRequest.builder()
+                .signatureDuration(Duration.ofSeconds(profilePicUrlTtlSeconds))
+                .getObjectRequest(GetObjectRequest.builder().bucket(bucketName).key(key).build())
+                .build();
+        return s3Presigner.presignGetObject(request).url();
     }
 }
@@ -0,0 +1,69 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.repository.SentEmailRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.function.IntSupplier;
+
+/**
+ * Keeps sent_emails small: hashes tokens of rows written without token_hash and deletes
+ * verified or long-expired rows, in bounded batches so no single statement runs long.
+ */
+@Component
+public class VerificationTokenSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificationTokenSweeper.class);
+
+    @Autowired
+    private SentEmailRepository sentEmailRepository;
+
+    @Autowired
+    private StatsDClient statsDClient;
+
+    @Value("${verification.sweeper.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${verification.sweeper.max-batches-per-run:20}")
+    private int maxBatchesPerRun = 20;
+
+    // Expired tokens are kept this long so late clicks still get "Token has expired"
+    @Value("${verification.sweeper.retention-ms:86400000}")
+    private long retentionMillis = 86400000;
+
+    @Scheduled(initialDelayString = "${verification.sweeper.interval-ms:600000}",
+            fixedDelayString = "${verification.sweeper.interval-ms:600000}")
+    public void sweep() {
+        try {
+            int hashed = runBatches(() -> sentEmailRepository.backfillTokenHashes(batchSize));
+            Timestamp cutoff = new Timestamp(System.currentTimeMillis() - retentionMillis);
+            int deleted = runBatches(() -> sentEmailRepository.deleteVerifiedOrSentBefore(cutoff, batchSize));
+
+            statsDClient.count("db.sentEmails.hashed", hashed);
+            statsDClient.count("db.sentEmails.swept", deleted);
+            if (hashed > 0 || deleted > 0) {
+                logger.info("Verification token sweep hashed {} and deleted {} rows", hashed, deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Verification token sweep failed: {}", e.getMessage());
+        }
+    }
+
+    private int runBatches(IntSupplier operation) {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int affected = operation.getAsInt();
+            total += affected;
+            if (affected < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
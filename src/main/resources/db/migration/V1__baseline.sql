@@ -0,0 +1,27 @@
+-- The schema as ddl-auto=update built it before migrations were introduced. Databases that
+-- already have tables are baselined at this version (spring.flyway.baseline-on-migrate) and
+-- start from V2; the later scripts are idempotent, so a database last updated by any release
+-- in between converges to the same schema.
+
+CREATE TABLE users (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY,
+    email           varchar(255) NOT NULL,
+    first_name      varchar(255) NOT NULL,
+    last_name       varchar(255) NOT NULL,
+    password        varchar(255) NOT NULL,
+    account_created timestamp(6) NOT NULL,
+    account_updated timestamp(6) NOT NULL,
+    email_verified  boolean      NOT NULL,
+    profile_pic_url varchar(255),
+    CONSTRAINT users_pkey PRIMARY KEY (id),
+    CONSTRAINT ux_users_email UNIQUE (email)
+);
+
+CREATE TABLE sent_emails (
+    id      bigint GENERATED BY DEFAULT AS IDENTITY,
+    email   varchar(255) NOT NULL,
+    token   varchar(255) NOT NULL,
+    sent_at timestamp(6) NOT NULL,
+    status  varchar(255),
+    CONSTRAINT sent_emails_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,11 @@
+-- Transactional outbox for verification messages
+CREATE TABLE IF NOT EXISTS outbox_messages (
+    id              bigint        NOT NULL,
+    payload         varchar(2048) NOT NULL,
+    created_at      timestamp(6)  NOT NULL,
+    next_attempt_at timestamp(6)  NOT NULL,
+    attempts        integer       NOT NULL,
+    status          varchar(255)  NOT NULL,
+    last_error      varchar(1024),
+    CONSTRAINT outbox_messages_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,6 @@
+-- Verification tokens are looked up by their SHA-256; rows written before this keep a NULL hash
+-- until the sweeper backfills it. Databases built by ddl-auto=update have the unique index as
+-- the backing index of a constraint with the same name, which IF NOT EXISTS leaves in place.
+ALTER TABLE sent_emails ADD COLUMN IF NOT EXISTS token_hash varchar(64);
+CREATE UNIQUE INDEX IF NOT EXISTS ux_sent_emails_token_hash ON sent_emails (token_hash);
+CREATE INDEX IF NOT EXISTS ix_sent_emails_sent_at ON sent_emails (sent_at);
@@ -0,0 +1,6 @@
+-- Pooled sequence ids for batched inserts. The IDENTITY defaults stay on older tables but are
+-- no longer used; GREATEST moves each sequence past the rows they numbered, never backwards.
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS outbox_messages_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM users) + 1, (SELECT last_value FROM users_seq)));
+SELECT setval('outbox_messages_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM outbox_messages) + 1, (SELECT last_value FROM outbox_messages_seq)));
@@ -0,0 +1,2 @@
+-- Set once the resized renditions of a user's picture are stored; NULL for pictures from before
+ALTER TABLE users ADD COLUMN IF NOT EXISTS profile_pic_renditions boolean;
@@ -0,0 +1,8 @@
+-- Reference counts for content-addressed picture objects shared between users
+CREATE TABLE IF NOT EXISTS profile_pic_objects (
+    object_key varchar(255) NOT NULL,
+    ref_count  integer      NOT NULL,
+    stored     boolean      NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    CONSTRAINT profile_pic_objects_pkey PRIMARY KEY (object_key)
+);
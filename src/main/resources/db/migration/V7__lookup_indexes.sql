@@ -0,0 +1,9 @@
+-- Indexes for lookups the schema update never created. CONCURRENTLY keeps sent_emails and the
+-- outbox writable while they build; Flyway runs this script outside a transaction for it.
+
+-- Verification emails by recipient, and by raw token for rows written without token_hash
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_sent_emails_email ON sent_emails (email);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_sent_emails_token ON sent_emails (token);
+
+-- The dispatcher polls for due PENDING rows; sent rows are deleted and FAILED ones stay out of it
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_outbox_messages_pending ON outbox_messages (next_attempt_at) WHERE status = 'PENDING';
@@ -0,0 +1,188 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.WebappApplication;
+import com.csye6225.webapp.messaging.CacheInvalidationListener;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs two application instances against one real Postgres and checks that a write on one
+ * instance reaches the other's user cache through LISTEN/NOTIFY within a bounded delay, also
+ * across a listener reconnect. The cache TTL is set far above the bounds, so only the bus can
+ * make the instances converge in time.
+ *
+ * Needs a scratch Postgres database and is skipped without one:
+ * PERF_PG_URL=jdbc:postgresql://localhost/webapp_test PERF_PG_USERNAME=... PERF_PG_PASSWORD=... gradle loadTest
+ */
+@EnabledIfEnvironmentVariable(named = "PERF_PG_URL", matches = "jdbc:postgresql:.*")
+class CacheInvalidationConvergenceTest {
+
+    private static final String PASSWORD = "Password123!";
+    private static final String NEW_PASSWORD = "Password456!";
+
+    // Poll interval plus delivery; reconnecting adds the minimum backoff
+    private static final Duration NOTIFY_BOUND = Duration.ofSeconds(2);
+    private static final Duration RECONNECT_BOUND = Duration.ofSeconds(5);
+
+    private static FakeS3Server fakeS3;
+    private static ConfigurableApplicationContext instanceA;
+    private static ConfigurableApplicationContext instanceB;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String email = "bus-" + Long.toString(System.currentTimeMillis(), 36) + "@example.com";
+
+    @BeforeAll
+    static void startInstances() throws Exception {
+        fakeS3 = new FakeS3Server(0);
+        instanceA = startInstance();
+        instanceB = startInstance();
+        awaitListening(instanceA);
+        awaitListening(instanceB);
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        if (instanceA != null) {
+            instanceA.close();
+        }
+        if (instanceB != null) {
+            instanceB.close();
+        }
+        if (fakeS3 != null) {
+            fakeS3.close();
+        }
+    }
+
+    @Test
+    void writesOnOneInstanceReachTheOther() throws Exception {
+        createVerifiedUser();
+        // Both instances now hold the user in their caches
+        assertTrue(getSelf(instanceA, PASSWORD).body().contains("\"firstName\":\"Before\""));
+        assertTrue(getSelf(instanceB, PASSWORD).body().contains("\"firstName\":\"Before\""));
+
+        assertEquals(200, patchFirstName(instanceA, PASSWORD, "After"));
+        awaitOnB(NOTIFY_BOUND, response -> response.body().contains("\"firstName\":\"After\""), PASSWORD);
+
+        // A password change must stop the old password on the other instance too
+        assertEquals(204, send(authorized(instanceA, "/v1/user/self", PASSWORD)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + email
+                        + "\",\"firstName\":\"After\",\"lastName\":\"Bus\",\"password\":\"" + NEW_PASSWORD + "\"}")))
+                .statusCode());
+        awaitOnB(NOTIFY_BOUND, response -> response.statusCode() == 401, PASSWORD);
+        assertEquals(200, getSelf(instanceB, NEW_PASSWORD).statusCode());
+
+        // Kill both listener connections and write while they are down; the reconnect clears the cache
+        instanceA.getBean(JdbcTemplate.class).queryForList(
+                "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = 'cache-invalidation-listener'");
+        assertEquals(200, patchFirstName(instanceA, NEW_PASSWORD, "Reconnected"));
+        awaitOnB(RECONNECT_BOUND, response -> response.body().contains("\"firstName\":\"Reconnected\""), NEW_PASSWORD);
+    }
+
+    private static ConfigurableApplicationContext startInstance() throws SQLException {
+        // Command-line arguments, so they win over the perf profile's H2 settings
+        ConfigurableApplicationContext instance = new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("perf")
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + System.getenv("PERF_PG_URL"),
+                        "--spring.datasource.username=" + System.getenv().getOrDefault("PERF_PG_USERNAME", "postgres"),
+                        "--spring.datasource.password=" + System.getenv().getOrDefault("PERF_PG_PASSWORD", ""),
+                        "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--aws.s3.endpoint=" + fakeS3.endpoint(),
+                        "--user.cache.ttl-seconds=3600",
+                        "--auth.cache.ttl-seconds=3600",
+                        "--cache.invalidation.enabled=true");
+        // Without LISTEN/NOTIFY the bus stays off and the test could not show anything; stop here instead
+        try (Connection connection = instance.getBean(DataSource.class).getConnection()) {
+            assertEquals("PostgreSQL", connection.getMetaData().getDatabaseProductName(), "instance is not running on Postgres");
+        }
+        return instance;
+    }
+
+    private static void awaitListening(ConfigurableApplicationContext instance) throws InterruptedException {
+        CacheInvalidationListener listener = instance.getBean(CacheInvalidationListener.class);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!listener.isListening() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(listener.isListening(), "listener did not connect");
+    }
+
+    private void createVerifiedUser() throws Exception {
+        String body = "{\"email\":\"" + email + "\",\"firstName\":\"Before\",\"lastName\":\"Bus\",\"password\":\"" + PASSWORD + "\"}";
+        assertEquals(201, send(HttpRequest.newBuilder(uri(instanceA, "/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))).statusCode());
+        // Skip the email link round trip; nothing is cached before the user can authenticate
+        UserRepository userRepository = instanceA.getBean(UserRepository.class);
+        User user = userRepository.findByEmail(email);
+        user.setEmailVerified(true);
+        userRepository.save(user);
+    }
+
+    private void awaitOnB(Duration bound, Predicate<HttpResponse<String>> converged, String password) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + bound.toNanos();
+        HttpResponse<String> response = getSelf(instanceB, password);
+        while (!converged.test(response) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            response = getSelf(instanceB, password);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(converged.test(response), "instance B still stale after " + elapsedMillis + " ms: "
+                + response.statusCode() + " " + response.body());
+        System.out.printf("instance B converged in %d ms (bound %d ms)%n", elapsedMillis, bound.toMillis());
+    }
+
+    private int patchFirstName(ConfigurableApplicationContext instance, String password, String firstName) throws Exception {
+        return send(authorized(instance, "/v1/user/self", password)
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"firstName\":\"" + firstName + "\"}")))
+                .statusCode();
+    }
+
+    private HttpResponse<String> getSelf(ConfigurableApplicationContext instance, String password) throws Exception {
+        return send(authorized(instance, "/v1/user/self", password).GET());
+    }
+
+    private HttpRequest.Builder authorized(ConfigurableApplicationContext instance, String path, String password) {
+        String credentials = Base64.getEncoder().encodeToString((email + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri(instance, path)).header("Authorization", "Basic " + credentials);
+    }
+
+    private static URI uri(ConfigurableApplicationContext instance, String path) {
+        int port = ((WebServerApplicationContext) instance).getWebServer().getPort();
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,206 @@
+package com.csye6225.webapp.perf;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the slice of the S3 REST API the app uses (path-style object
+ * PUT/GET/HEAD/DELETE and multipart uploads). Objects are kept in memory; an optional
+ * fixed latency approximates the round trip to the real service.
+ */
+public class FakeS3Server implements AutoCloseable {
+
+    private record StoredObject(byte[] data, String contentType, String etag) {
+    }
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final Map<String, StoredObject> objects = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    public FakeS3Server(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int objectCount() {
+        return objects.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            // Bucket-level requests (/bucket) only need to succeed
+            if (path.indexOf('/', 1) < 0) {
+                send(exchange, 200, "application/xml", new byte[0]);
+                return;
+            }
+
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> put(exchange, path, query);
+                case "POST" -> post(exchange, path, query);
+                case "GET" -> get(exchange, path, true);
+                case "HEAD" -> get(exchange, path, false);
+                case "DELETE" -> delete(exchange, path, query);
+                default -> send(exchange, 405, null, new byte[0]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void put(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        byte[] body = readBody(exchange.getRequestBody());
+        String etag = md5Hex(body);
+        String uploadId = query.get("uploadId");
+        if (uploadId != null) {
+            ConcurrentSkipListMap<Integer, byte[]> parts = uploads.get(uploadId);
+            if (parts == null) {
+                sendError(exchange, 404, "NoSuchUpload");
+                return;
+            }
+            parts.put(Integer.parseInt(query.get("partNumber")), body);
+        } else {
+            objects.put(path, new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type"), etag));
+        }
+        exchange.getResponseHeaders().set("ETag", "\"" + etag + "\"");
+        send(exchange, 200, null, new byte[0]);
+    }
+
+    private void post(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        String[] bucketAndKey = path.substring(1).split("/", 2);
+        if (query.containsKey("uploads")) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new ConcurrentSkipListMap<>());
+            sendXml(exchange, "<InitiateMultipartUploadResult><Bucket>" + bucketAndKey[0] + "</Bucket><Key>"
+                    + bucketAndKey[1] + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+            return;
+        }
+
+        String uploadId = query.get("uploadId");
+        ConcurrentSkipListMap<Integer, byte[]> parts = uploadId == null ? null : uploads.remove(uploadId);
+        if (parts == null) {
+            sendError(exchange, 404, "NoSuchUpload");
+            return;
+        }
+        readBody(exchange.getRequestBody());
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (byte[] part : parts.values()) {
+            data.write(part);
+        }
+        String etag = md5Hex(data.toByteArray()) + "-" + parts.size();
+        objects.put(path, new StoredObject(data.toByteArray(), null, etag));
+        sendXml(exchange, "<CompleteMultipartUploadResult><Bucket>" + bucketAndKey[0] + "</Bucket><Key>"
+                + bucketAndKey[1] + "</Key><ETag>\"" + etag + "\"</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void get(HttpExchange exchange, String path, boolean withBody) throws IOException {
+        StoredObject object = objects.get(path);
+        if (object == null) {
+            if (withBody) {
+                sendError(exchange, 404, "NoSuchKey");
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", "\"" + object.etag() + "\"");
+        if (withBody) {
+            send(exchange, 200, object.contentType(), object.data());
+        } else {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(object.data().length));
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    private void delete(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        String uploadId = query.get("uploadId");
+        if (uploadId != null) {
+            uploads.remove(uploadId);
+        } else {
+            objects.remove(path);
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private static void sendXml(HttpExchange exchange, String xml) throws IOException {
+        send(exchange, 200, "application/xml",
+                ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String code) throws IOException {
+        send(exchange, status, "application/xml", ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code
+                + "</Code><Message>" + code + "</Message></Error>").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            query.put(eq < 0 ? pair : pair.substring(0, eq), eq < 0 ? "" : pair.substring(eq + 1));
+        }
+        return query;
+    }
+
+    private static String md5Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load driver: requests arrive as a Poisson process at a fixed rate regardless of
+ * how fast earlier ones complete, and latency is measured from each request's scheduled
+ * arrival time, so a slow server shows up as queueing delay instead of a lower send rate.
+ */
+public class OpenModelLoadGenerator {
+
+    // Sentinel status for operations that had nothing to act on (e.g. no user with a picture yet)
+    public static final int SKIPPED = 0;
+
+    @FunctionalInterface
+    public interface Operation {
+        // Returns the HTTP status, or SKIPPED
+        int call() throws Exception;
+    }
+
+    public record WeightedOperation(String name, int weight, Operation operation) {
+    }
+
+    public record EndpointResult(String name, long count, long skipped, long errors, Map<Integer, Long> statuses,
+                                 LatencyHistogram.Snapshot latency) {
+    }
+
+    public record Report(double offeredRate, double achievedRate, long dropped, Duration elapsed,
+                         List<EndpointResult> endpoints) {
+
+        public long totalErrors() {
+            return endpoints.stream().mapToLong(EndpointResult::errors).sum();
+        }
+
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("offered %.1f req/s, achieved %.1f req/s over %ds, dropped %d%n",
+                    offeredRate, achievedRate, elapsed.toSeconds(), dropped));
+            out.append(String.format("%-12s %8s %8s %9s %9s %9s %9s %7s  %s%n",
+                    "endpoint", "count", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors", "statuses"));
+            double seconds = elapsed.toNanos() / 1e9;
+            for (EndpointResult result : endpoints) {
+                LatencyHistogram.Snapshot latency = result.latency();
+                out.append(String.format("%-12s %8d %8.1f %9.2f %9.2f %9.2f %9.2f %7d  %s%n",
+                        result.name(), result.count(), result.count() / seconds,
+                        latency.p50Nanos() / 1e6, latency.p95Nanos() / 1e6, latency.p99Nanos() / 1e6,
+                        latency.maxNanos() / 1e6, result.errors(), result.statuses()));
+            }
+            return out.toString();
+        }
+    }
+
+    private static class EndpointStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void complete(int status, long nanos) {
+            if (status == SKIPPED) {
+                skipped.increment();
+                return;
+            }
+            latency.record(nanos);
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+            if (status >= 500) {
+                errors.increment();
+            }
+        }
+
+        void fail(long nanos) {
+            latency.record(nanos);
+            errors.increment();
+        }
+    }
+
+    private final double arrivalsPerSecond;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final long seed;
+
+    public OpenModelLoadGenerator(double arrivalsPerSecond, Duration duration, int maxInFlight, long seed) {
+        this.arrivalsPerSecond = arrivalsPerSecond;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.seed = seed;
+    }
+
+    public Report run(List<WeightedOperation> mix) {
+        int totalWeight = mix.stream().mapToInt(WeightedOperation::weight).sum();
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (WeightedOperation operation : mix) {
+            stats.put(operation.name(), new EndpointStats());
+        }
+
+        Random random = new Random(seed);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long dropped = 0;
+        long sent = 0;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (true) {
+                // Exponential inter-arrival times give a Poisson arrival process
+                next += (long) (-Math.log(1 - random.nextDouble()) * 1e9 / arrivalsPerSecond);
+                if (next >= end) {
+                    break;
+                }
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                WeightedOperation operation = pick(mix, random.nextInt(totalWeight));
+                // Bound client memory if the server falls far behind; shed and count instead of queueing
+                if (!inFlight.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                sent++;
+                EndpointStats endpoint = stats.get(operation.name());
+                long scheduledAt = next;
+                executor.execute(() -> {
+                    try {
+                        endpoint.complete(operation.operation().call(), System.nanoTime() - scheduledAt);
+                    } catch (Exception e) {
+                        endpoint.fail(System.nanoTime() - scheduledAt);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        List<EndpointResult> results = new ArrayList<>();
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats endpoint = entry.getValue();
+            Map<Integer, Long> statuses = new TreeMap<>();
+            endpoint.statuses.forEach((status, count) -> statuses.put(status, count.sum()));
+            LatencyHistogram.Snapshot latency = endpoint.latency.snapshot();
+            results.add(new EndpointResult(entry.getKey(), latency.count(), endpoint.skipped.sum(),
+                    endpoint.errors.sum(), statuses, latency));
+        }
+        return new Report(arrivalsPerSecond, sent / (elapsed.toNanos() / 1e9), dropped, elapsed, results);
+    }
+
+    private static WeightedOperation pick(List<WeightedOperation> mix, int ticket) {
+        for (WeightedOperation operation : mix) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+}
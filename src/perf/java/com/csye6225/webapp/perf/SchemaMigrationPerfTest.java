@@ -0,0 +1,169 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.WebappApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the schema handling before and after versioned migrations on a real Postgres with
+ * seeded tables: application start with ddl-auto=update against Flyway plus ddl-auto=validate,
+ * and sent_emails lookups by recipient and by raw token with and without the V7 indexes.
+ * The first start applies the migrations; later starts find the schema up to date.
+ *
+ * Needs a scratch Postgres database (the lookup test drops and recreates the V7 indexes)
+ * and is skipped without one:
+ * PERF_PG_URL=jdbc:postgresql://localhost/webapp_test PERF_PG_USERNAME=... PERF_PG_PASSWORD=... gradle loadTest
+ */
+@EnabledIfEnvironmentVariable(named = "PERF_PG_URL", matches = "jdbc:postgresql:.*")
+class SchemaMigrationPerfTest {
+
+    private static final int USERS = Integer.getInteger("perf.schema.users", 200_000);
+    private static final int SENT_EMAILS = Integer.getInteger("perf.schema.sent-emails", 400_000);
+    private static final int STARTS = Integer.getInteger("perf.schema.starts", 5);
+    private static final int LOOKUPS = Integer.getInteger("perf.schema.lookups", 500);
+
+    private static final String BY_EMAIL =
+            "SELECT id FROM sent_emails WHERE email = ? ORDER BY sent_at DESC LIMIT 1";
+    private static final String BY_TOKEN =
+            "SELECT id FROM sent_emails WHERE token = ? AND token_hash IS NULL";
+
+    private static FakeS3Server fakeS3;
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void migrateAndSeed() throws Exception {
+        fakeS3 = new FakeS3Server(0);
+        // Closed again, so no instance polls the database while the others are measured
+        start("--spring.flyway.enabled=true", "--spring.jpa.hibernate.ddl-auto=validate").close();
+        dataSource = new SingleConnectionDataSource(System.getenv("PERF_PG_URL"),
+                System.getenv().getOrDefault("PERF_PG_USERNAME", "postgres"),
+                System.getenv().getOrDefault("PERF_PG_PASSWORD", ""), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        Integer users = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email LIKE 'seed-%'", Integer.class);
+        if (users == null || users < USERS) {
+            jdbcTemplate.update("INSERT INTO users (id, email, first_name, last_name, password, account_created, "
+                    + "account_updated, email_verified) SELECT nextval('users_seq'), 'seed-' || g || '@example.com', "
+                    + "'Seed', 'User', 'x', now(), now(), true FROM generate_series(1, ?) g ON CONFLICT (email) DO NOTHING", USERS);
+            // Every tenth row predates token_hash, like the rows the sweeper still has to backfill
+            jdbcTemplate.update("INSERT INTO sent_emails (email, token, token_hash, sent_at, status) "
+                    + "SELECT 'seed-' || (g % ?) || '@example.com', 'seed-token-' || g, CASE WHEN g % 10 = 0 THEN NULL "
+                    + "ELSE encode(sha256(convert_to('seed-token-' || g, 'UTF8')), 'hex') END, now(), 'SENT' "
+                    + "FROM generate_series(1, ?) g", USERS, SENT_EMAILS);
+            jdbcTemplate.execute("ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void stop() {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+        if (fakeS3 != null) {
+            fakeS3.close();
+        }
+    }
+
+    // Reported, not asserted: both modes issue a handful of grouped metadata queries on an unchanged
+    // schema, and Flyway adds a history read, so in-process start times differ by less than their noise
+    @Test
+    void startWithUpdateAndWithMigrateValidate() {
+        long[] update = new long[STARTS];
+        long[] validate = new long[STARTS];
+        // Interleaved, so JIT warm-up of the test JVM favours neither mode
+        for (int run = 0; run < STARTS; run++) {
+            update[run] = timeStart("--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=update");
+            validate[run] = timeStart("--spring.flyway.enabled=true", "--spring.jpa.hibernate.ddl-auto=validate");
+        }
+        long updateMedian = median(update);
+        long validateMedian = median(validate);
+        System.out.printf("startup with %d users, %d sent_emails: update p50 %d ms, migrate+validate p50 %d ms (%+.0f%%)%n",
+                USERS, SENT_EMAILS, updateMedian, validateMedian, 100.0 * (validateMedian - updateMedian) / updateMedian);
+    }
+
+    @Test
+    void indexedLookupsBeatScans() {
+        double[] indexed = lookups();
+        jdbcTemplate.execute("DROP INDEX IF EXISTS ix_sent_emails_email");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS ix_sent_emails_token");
+        double[] scanned;
+        try {
+            scanned = lookups();
+        } finally {
+            // Same definitions as V7, so the schema is left as migrated
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS ix_sent_emails_email ON sent_emails (email)");
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS ix_sent_emails_token ON sent_emails (token)");
+        }
+        System.out.printf("sent_emails by email: indexed p50 %.2f ms p99 %.2f ms, unindexed p50 %.2f ms p99 %.2f ms%n",
+                indexed[0], indexed[1], scanned[0], scanned[1]);
+        System.out.printf("sent_emails by token: indexed p50 %.2f ms p99 %.2f ms, unindexed p50 %.2f ms p99 %.2f ms%n",
+                indexed[2], indexed[3], scanned[2], scanned[3]);
+        assertTrue(indexed[0] < scanned[0] && indexed[2] < scanned[2], "indexed lookups not faster");
+    }
+
+    // p50 and p99 in ms for the email lookup, then the token lookup
+    private static double[] lookups() {
+        List<Long> byEmail = new ArrayList<>();
+        List<Long> byToken = new ArrayList<>();
+        for (int i = 0; i < LOOKUPS; i++) {
+            int seed = ThreadLocalRandom.current().nextInt(1, SENT_EMAILS + 1);
+            byEmail.add(time(BY_EMAIL, "seed-" + (seed % USERS) + "@example.com"));
+            byToken.add(time(BY_TOKEN, "seed-token-" + seed));
+        }
+        byEmail.sort(null);
+        byToken.sort(null);
+        return new double[]{percentile(byEmail, 0.50), percentile(byEmail, 0.99),
+                percentile(byToken, 0.50), percentile(byToken, 0.99)};
+    }
+
+    private static long time(String sql, String parameter) {
+        long start = System.nanoTime();
+        jdbcTemplate.queryForList(sql, Long.class, parameter);
+        return System.nanoTime() - start;
+    }
+
+    private static double percentile(List<Long> sortedNanos, double quantile) {
+        int index = Math.min(sortedNanos.size() - 1, (int) Math.ceil(quantile * sortedNanos.size()) - 1);
+        return sortedNanos.get(index) / 1_000_000.0;
+    }
+
+    private static long timeStart(String... schemaArgs) {
+        long start = System.nanoTime();
+        start(schemaArgs).close();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long median(long[] millis) {
+        long[] sorted = millis.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // Command-line arguments, so they win over the perf profile's H2 settings
+    private static ConfigurableApplicationContext start(String... schemaArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=" + System.getenv("PERF_PG_URL"),
+                "--spring.datasource.username=" + System.getenv().getOrDefault("PERF_PG_USERNAME", "postgres"),
+                "--spring.datasource.password=" + System.getenv().getOrDefault("PERF_PG_PASSWORD", ""),
+                "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                "--aws.s3.endpoint=" + fakeS3.endpoint()));
+        args.addAll(List.of(schemaArgs));
+        return new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("perf")
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,91 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.WebappApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Upgrades a database as the release before migrations left it (schema/baseline-release.sql):
+ * Flyway baselines it at V1 and applies the rest, Hibernate validates the result, and a signup
+ * gets an id past the rows numbered by the old IDENTITY columns.
+ *
+ * Needs a scratch Postgres database, in which it recreates the schema_upgrade schema, and is
+ * skipped without one:
+ * PERF_PG_URL=jdbc:postgresql://localhost/webapp_test PERF_PG_USERNAME=... PERF_PG_PASSWORD=... gradle loadTest
+ */
+@EnabledIfEnvironmentVariable(named = "PERF_PG_URL", matches = "jdbc:postgresql:.*")
+class SchemaUpgradeTest {
+
+    private static final String SCHEMA = "schema_upgrade";
+
+    @Test
+    void baselineReleaseDatabaseMigratesAndValidates() throws Exception {
+        String baseUrl = System.getenv("PERF_PG_URL");
+        String url = baseUrl + (baseUrl.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA;
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(url,
+                System.getenv().getOrDefault("PERF_PG_USERNAME", "postgres"),
+                System.getenv().getOrDefault("PERF_PG_PASSWORD", ""), true);
+        try (FakeS3Server fakeS3 = new FakeS3Server(0)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+            new ResourceDatabasePopulator(new ClassPathResource("schema/baseline-release.sql")).execute(dataSource);
+            long legacyMaxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+
+            // Starting at all means ddl-auto=validate accepted the migrated schema
+            try (ConfigurableApplicationContext instance = start(url, fakeS3)) {
+                List<String> versions = jdbcTemplate.queryForList(
+                        "SELECT version FROM flyway_schema_history WHERE success ORDER BY installed_rank", String.class);
+                assertEquals(List.of("1", "2", "3", "4", "5", "6", "7"), versions);
+                assertEquals("BASELINE", jdbcTemplate.queryForObject(
+                        "SELECT type FROM flyway_schema_history WHERE version = '1'", String.class));
+
+                String email = "upgrade-" + Long.toString(System.currentTimeMillis(), 36) + "@example.com";
+                String body = "{\"email\":\"" + email + "\",\"firstName\":\"After\",\"lastName\":\"Upgrade\",\"password\":\"Password123!\"}";
+                int port = ((WebServerApplicationContext) instance).getWebServer().getPort();
+                HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                        HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/user"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(body))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+                assertEquals(201, response.statusCode());
+                long newId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+                assertTrue(newId > legacyMaxId, "new id " + newId + " collides with the IDENTITY range up to " + legacyMaxId);
+            }
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+    // Command-line arguments, so they win over the perf profile's H2 settings
+    private static ConfigurableApplicationContext start(String url, FakeS3Server fakeS3) {
+        return new SpringApplicationBuilder(WebappApplication.class)
+                .profiles("perf")
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.datasource.username=" + System.getenv().getOrDefault("PERF_PG_USERNAME", "postgres"),
+                        "--spring.datasource.password=" + System.getenv().getOrDefault("PERF_PG_PASSWORD", ""),
+                        "--spring.datasource.driver-class-name=org.postgresql.Driver",
+                        "--spring.flyway.enabled=true",
+                        "--spring.jpa.hibernate.ddl-auto=validate",
+                        "--aws.s3.endpoint=" + fakeS3.endpoint());
+    }
+}
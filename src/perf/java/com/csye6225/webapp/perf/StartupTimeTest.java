@@ -0,0 +1,154 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.WebappApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts the packaged application as a separate JVM in each startup mode and measures the time
+ * from process launch to the first 200 from /healthz, the signal the load balancer waits for:
+ * the boot jar as the service runs it today, the extracted AOT-processed layout, and that
+ * layout with the AppCDS archive. Each start uses a fresh in-memory database.
+ *
+ * Run with: gradle -PfastStartup startupTest [-Pperf.startup.runs=5]
+ */
+@EnabledIfSystemProperty(named = "perf.startup.dir", matches = ".+")
+class StartupTimeTest {
+
+    private static final int RUNS = Integer.getInteger("perf.startup.runs", 3);
+    private static final Duration HEALTHY_TIMEOUT = Duration.ofSeconds(120);
+
+    private static final String JAVA = System.getProperty("perf.startup.java");
+    private static final String BOOT_JAR = System.getProperty("perf.startup.boot-jar");
+    private static final String H2_JAR = System.getProperty("perf.startup.h2-jar");
+    private static final Path FAST_STARTUP_DIR = Path.of(System.getProperty("perf.startup.dir", "."));
+
+    private record Mode(String name, List<String> jvmArgs) {
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    @Test
+    void timeToFirstHealthy() throws Exception {
+        // The fast modes run from the extracted layout with the same relative classpath the archive was recorded with
+        String fastClasspath = "application.jar" + File.pathSeparator + H2_JAR;
+        List<Mode> modes = List.of(
+                new Mode("baseline", List.of("-cp", BOOT_JAR, "-Dloader.path=" + H2_JAR,
+                        "org.springframework.boot.loader.launch.PropertiesLauncher")),
+                new Mode("aot", List.of("-Dspring.aot.enabled=true",
+                        "-cp", fastClasspath, WebappApplication.class.getName())),
+                // -Xshare:on fails the start instead of silently running without an unusable archive
+                new Mode("aot+cds", List.of("-XX:SharedArchiveFile=application.jsa", "-Xshare:on", "-Dspring.aot.enabled=true",
+                        "-cp", fastClasspath, WebappApplication.class.getName())));
+
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("time to first healthy /healthz, %d starts per mode%n", RUNS));
+        summary.append(String.format("%-10s %8s %8s %8s %9s%n", "mode", "p50 ms", "min ms", "max ms", "vs base"));
+        long baseline = 0;
+        for (Mode mode : modes) {
+            long[] millis = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                millis[run] = startUntilHealthy(mode, run);
+            }
+            Arrays.sort(millis);
+            long median = millis[RUNS / 2];
+            if (baseline == 0) {
+                baseline = median;
+            }
+            summary.append(String.format("%-10s %8d %8d %8d %8.0f%%%n", mode.name(), median, millis[0], millis[RUNS - 1],
+                    100.0 * (median - baseline) / baseline));
+        }
+        System.out.print(summary);
+
+        String reportFile = System.getProperty("perf.report-file");
+        if (reportFile != null) {
+            Path path = Path.of(reportFile);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, summary);
+        }
+    }
+
+    private long startUntilHealthy(Mode mode, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.add("-Daws.region=us-east-1");
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--db.migrate-on-startup=false",
+                "--aws.s3.bucket=startup",
+                "--cache.invalidation.enabled=false"));
+
+        Path log = Files.createTempFile("startup-" + mode.name().replace('+', '-') + "-" + run, ".log");
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(FAST_STARTUP_DIR.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile());
+        builder.environment().put("LOG_MODE", "SYNC");
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + HEALTHY_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                assertTrue(process.isAlive(), mode.name() + " exited with " + exitCode(process) + ", see " + log);
+                if (healthy(port)) {
+                    long millis = (System.nanoTime() - start) / 1_000_000;
+                    System.out.printf("%s start %d healthy after %d ms%n", mode.name(), run + 1, millis);
+                    Files.deleteIfExists(log);
+                    return millis;
+                }
+                Thread.sleep(10);
+            }
+            throw new AssertionError(mode.name() + " not healthy within " + HEALTHY_TIMEOUT + ", see " + log);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private boolean healthy(int port) throws InterruptedException {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/healthz"))
+                    .timeout(Duration.ofSeconds(1))
+                    .GET()
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    private static Integer exitCode(Process process) {
+        return process.isAlive() ? null : process.exitValue();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.csye6225.webapp.perf;
+
+import com.csye6225.webapp.messaging.InMemoryMessagePublisher;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Boots the full application against an in-memory Postgres-mode database, an in-process S3
+ * and the local message publisher, then drives an open-model request mix over HTTP and
+ * reports throughput and latency percentiles per endpoint.
+ *
+ * Run with: gradle loadTest [-Pperf.rate=200 -Pperf.duration-seconds=60 -Pperf.users=200]
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("perf")
+class UserApiLoadTest {
+
+    private static final String PASSWORD = "Password123!";
+
+    private static final double RATE = Double.parseDouble(System.getProperty("perf.rate", "10"));
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("perf.warmup-seconds", 10);
+    private static final int USERS = Integer.getInteger("perf.users", 50);
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("perf.max-in-flight", 2000);
+    // Width of the generated PNG (4:3); uploads are decoded and resized, so they must be real images
+    private static final int PICTURE_WIDTH = Integer.getInteger("perf.picture-width", 1024);
+    private static final int SEED_CONCURRENCY = 4;
+    private static final long S3_LATENCY_MS = Long.getLong("perf.s3-latency-ms", 20);
+
+    private static final FakeS3Server fakeS3 = startFakeS3();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final AtomicLong signupSequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    // Users are moved between pools so picture operations act on a user in the right state
+    private final ConcurrentLinkedQueue<String> withoutPicture = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<String> withPicture = new ConcurrentLinkedQueue<>();
+    private final List<String> users = new ArrayList<>();
+
+    private byte[] picture;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InMemoryMessagePublisher messagePublisher;
+
+    @DynamicPropertySource
+    static void fakeS3Properties(DynamicPropertyRegistry registry) {
+        registry.add("aws.s3.endpoint", fakeS3::endpoint);
+    }
+
+    @AfterAll
+    static void stopFakeS3() {
+        fakeS3.close();
+    }
+
+    @Test
+    void userApiMix() throws Exception {
+        picture = generatePicture(PICTURE_WIDTH, PICTURE_WIDTH * 3 / 4);
+        seedVerifiedUsers();
+
+        List<OpenModelLoadGenerator.WeightedOperation> mix = List.of(
+                new OpenModelLoadGenerator.WeightedOperation("signup", 5, this::signup),
+                new OpenModelLoadGenerator.WeightedOperation("getSelf", 55, this::getSelf),
+                new OpenModelLoadGenerator.WeightedOperation("updateSelf", 5, this::updateSelf),
+                new OpenModelLoadGenerator.WeightedOperation("patchSelf", 5, this::patchSelf),
+                new OpenModelLoadGenerator.WeightedOperation("uploadPic", 10, this::uploadPicture),
+                new OpenModelLoadGenerator.WeightedOperation("getPic", 15, this::getPicture),
+                new OpenModelLoadGenerator.WeightedOperation("deletePic", 5, this::deletePicture));
+
+        if (WARMUP_SECONDS > 0) {
+            new OpenModelLoadGenerator(RATE, Duration.ofSeconds(WARMUP_SECONDS), MAX_IN_FLIGHT, 1).run(mix);
+        }
+        long signupsBefore = signupSequence.get();
+        messagePublisher.clear();
+
+        OpenModelLoadGenerator.Report report =
+                new OpenModelLoadGenerator(RATE, Duration.ofSeconds(DURATION_SECONDS), MAX_IN_FLIGHT, 2).run(mix);
+
+        String summary = String.format("users %d, picture %dpx wide (%d bytes), fake S3 latency %d ms%n%s",
+                USERS, PICTURE_WIDTH, picture.length, S3_LATENCY_MS, report.format());
+        System.out.print(summary);
+        String reportFile = System.getProperty("perf.report-file");
+        if (reportFile != null) {
+            Path path = Path.of(reportFile);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, summary);
+        }
+
+        assertEquals(0, report.totalErrors(), "server errors under load");
+        awaitPublished(signupSequence.get() - signupsBefore);
+    }
+
+    private void seedVerifiedUsers() throws Exception {
+        // Signup hashes inside its transaction, so an unbounded burst would exhaust the connection pool
+        try (ExecutorService executor = Executors.newFixedThreadPool(SEED_CONCURRENCY)) {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                String email = "seed-" + runId + "-" + i + "@example.com";
+                users.add(email);
+                futures.add(executor.submit(() -> createUser(email)));
+            }
+            for (Future<Integer> future : futures) {
+                assertEquals(201, future.get());
+            }
+        }
+        // Skip the email link round trip; authenticated endpoints require a verified user
+        for (String email : users) {
+            User user = userRepository.findByEmail(email);
+            user.setEmailVerified(true);
+            userRepository.save(user);
+        }
+        withoutPicture.addAll(users);
+    }
+
+    // Verification messages for every signup reach the publisher through the outbox
+    private void awaitPublished(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 15000;
+        while (messagePublisher.getPublished().size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(200);
+        }
+        assertTrue(messagePublisher.getPublished().size() >= expected,
+                "published " + messagePublisher.getPublished().size() + " of " + expected + " verification messages");
+    }
+
+    private int signup() throws Exception {
+        signupSequence.incrementAndGet();
+        return createUser("load-" + runId + "-" + signupSequence.get() + "@example.com");
+    }
+
+    private int createUser(String email) throws Exception {
+        String body = "{\"email\":\"" + email + "\",\"firstName\":\"Load\",\"lastName\":\"Test\",\"password\":\"" + PASSWORD + "\"}";
+        return send(HttpRequest.newBuilder(uri("/v1/user"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private int getSelf() throws Exception {
+        return send(authorized("/v1/user/self", randomUser()).GET());
+    }
+
+    private int updateSelf() throws Exception {
+        String email = randomUser();
+        String body = "{\"email\":\"" + email + "\",\"firstName\":\"Updated\",\"lastName\":\"User\",\"password\":\"" + PASSWORD + "\"}";
+        return send(authorized("/v1/user/self", email)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private int patchSelf() throws Exception {
+        String body = "{\"firstName\":\"Patched" + ThreadLocalRandom.current().nextInt(1000) + "\"}";
+        return send(authorized("/v1/user/self", randomUser())
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private int uploadPicture() throws Exception {
+        String email = withoutPicture.poll();
+        if (email == null) {
+            return OpenModelLoadGenerator.SKIPPED;
+        }
+        int status = send(authorized("/v1/user/self/pic", email)
+                .header("Content-Type", "image/png")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(picture)));
+        (status == 201 ? withPicture : withoutPicture).add(email);
+        return status;
+    }
+
+    private int getPicture() throws Exception {
+        String email = withPicture.poll();
+        if (email == null) {
+            return OpenModelLoadGenerator.SKIPPED;
+        }
+        try {
+            return send(authorized("/v1/user/self/pic", email).GET());
+        } finally {
+            withPicture.add(email);
+        }
+    }
+
+    private int deletePicture() throws Exception {
+        String email = withPicture.poll();
+        if (email == null) {
+            return OpenModelLoadGenerator.SKIPPED;
+        }
+        int status = send(authorized("/v1/user/self/pic", email).DELETE());
+        (status == 204 ? withoutPicture : withPicture).add(email);
+        return status;
+    }
+
+    private String randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private HttpRequest.Builder authorized(String path, String email) {
+        String credentials = Base64.getEncoder().encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Basic " + credentials);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+
+    // Smooth gradient plus noise, so the PNG compresses roughly like a photo rather than a flat fill
+    private static byte[] generatePicture(int width, int height) throws IOException {
+        Random random = new Random(42);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int noise = random.nextInt(32);
+                image.setRGB(x, y, (x * 223 / width + noise) << 16 | (y * 223 / height + noise) << 8 | noise);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static FakeS3Server startFakeS3() {
+        try {
+            return new FakeS3Server(S3_LATENCY_MS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
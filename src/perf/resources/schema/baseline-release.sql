@@ -0,0 +1,11 @@
+-- Schema and rows of a database last started by the release before migrations, as its
+-- ddl-auto=update built them (IDENTITY ids, Hibernate's generated unique constraint name)
+create table users (id bigint generated by default as identity, account_created timestamp(6) not null, account_updated timestamp(6) not null, email varchar(255) not null, email_verified boolean not null, first_name varchar(255) not null, last_name varchar(255) not null, password varchar(255) not null, profile_pic_url varchar(255), primary key (id));
+create table sent_emails (id bigint generated by default as identity, email varchar(255) not null, sent_at timestamp(6) not null, status varchar(255), token varchar(255) not null, primary key (id));
+alter table if exists users drop constraint if exists uk6dotkott2kjsp8vw4d0m25fb7;
+alter table if exists users add constraint uk6dotkott2kjsp8vw4d0m25fb7 unique (email);
+
+insert into users (account_created, account_updated, email, email_verified, first_name, last_name, password)
+select now(), now(), 'legacy-' || g || '@example.com', true, 'Legacy', 'User', 'x' from generate_series(1, 120) g;
+insert into sent_emails (email, sent_at, status, token)
+select 'legacy-' || g || '@example.com', now(), 'SENT', 'legacy-token-' || g from generate_series(1, 120) g;
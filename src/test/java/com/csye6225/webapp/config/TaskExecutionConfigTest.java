@@ -0,0 +1,41 @@
+package com.csye6225.webapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskExecutionConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+            .withUserConfiguration(PasswordHashingConfig.class, ProfilePicConfig.class);
+
+    @Test
+    void testDedicatedPools_removeBootDefaultExecutor() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean("applicationTaskExecutor"));
+    }
+
+    @Test
+    void testApplicationTaskExecutor_keptAlongsideDedicatedPools() {
+        contextRunner.withUserConfiguration(TaskExecutionConfig.class)
+                .withPropertyValues("spring.task.execution.thread-name-prefix=app-task-")
+                .run(context -> {
+                    ThreadPoolTaskExecutor executor = context.getBean("applicationTaskExecutor", ThreadPoolTaskExecutor.class);
+                    assertThat(executor.getThreadNamePrefix()).isEqualTo("app-task-");
+                    assertThat(context.getBean("taskExecutor")).isSameAs(executor);
+                    assertThat(context).hasBean("passwordHashExecutor").hasBean("imageProcessingExecutor");
+                });
+    }
+
+    @Test
+    void testApplicationTaskExecutor_virtualThreadMode() {
+        contextRunner.withUserConfiguration(TaskExecutionConfig.class)
+                .withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertThat(context.getBean("applicationTaskExecutor")).isInstanceOf(SimpleAsyncTaskExecutor.class));
+    }
+}
@@ -0,0 +1,48 @@
+package com.csye6225.webapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogSamplingFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+
+    private LogSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new LogSamplingFilter();
+        filter.setContext(context);
+        filter.addSample("com.example.Chatty=0");
+        filter.addSample("com.example.Half=0.5");
+        filter.start();
+    }
+
+    @Test
+    void testSampling_onlyConfiguredInfoLines() {
+        Logger chatty = context.getLogger("com.example.Chatty");
+        Logger other = context.getLogger("com.example.Other");
+
+        assertEquals(FilterReply.DENY, filter.decide(null, chatty, Level.INFO, "line", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, chatty, Level.WARN, "line", null, null));
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, other, Level.INFO, "line", null, null));
+        // isInfoEnabled() checks carry no format and are not sampled
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, chatty, Level.INFO, null, null, null));
+        assertEquals(1, filter.getSampledOutCount());
+
+        Logger half = context.getLogger("com.example.Half");
+        int kept = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.decide(null, half, Level.INFO, "line", null, null) == FilterReply.NEUTRAL) {
+                kept++;
+            }
+        }
+        assertEquals(5000, kept, 500);
+    }
+}
@@ -0,0 +1,99 @@
+package com.csye6225.webapp.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<ILoggingEvent> written = new CopyOnWriteArrayList<>();
+
+    private RingBufferAsyncAppender appender;
+
+    // Sink that holds the writer thread on its first event, so the buffer can be filled deterministically
+    private class BlockingSink extends AppenderBase<ILoggingEvent> {
+        @Override
+        protected void append(ILoggingEvent event) {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.add(event);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        context.setMDCAdapter(MDC.getMDCAdapter());
+        BlockingSink sink = new BlockingSink();
+        sink.setContext(context);
+        sink.start();
+
+        appender = new RingBufferAsyncAppender();
+        appender.setContext(context);
+        appender.setName("ASYNC_TEST");
+        appender.setCapacity(4);
+        appender.setDiscardThresholdPercent(75);
+        appender.addAppender(sink);
+        appender.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        appender.stop();
+    }
+
+    private ILoggingEvent event(Level level, String message) {
+        return new LoggingEvent("test", context.getLogger("test"), level, message, null, null);
+    }
+
+    @Test
+    void testFullBuffer_dropsWithoutBlocking() throws Exception {
+        MDC.put(CorrelationIdFilter.MDC_KEY, "req-1");
+        try {
+            appender.doAppend(event(Level.INFO, "first"));
+        } finally {
+            MDC.remove(CorrelationIdFilter.MDC_KEY);
+        }
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+        appender.doAppend(event(Level.INFO, "info-1"));
+        appender.doAppend(event(Level.INFO, "info-2"));
+        // Two free slots is under the threshold of three: INFO is dropped, WARN still fits
+        appender.doAppend(event(Level.INFO, "info-dropped"));
+        appender.doAppend(event(Level.WARN, "warn-1"));
+        appender.doAppend(event(Level.WARN, "warn-2"));
+        // Full: even WARN is dropped rather than blocking the caller
+        appender.doAppend(event(Level.WARN, "warn-dropped"));
+
+        assertEquals(2, appender.getDroppedCount());
+        assertEquals(4, appender.getQueueDepth());
+
+        release.countDown();
+        appender.stop();
+        assertEquals(List.of("first", "info-1", "info-2", "warn-1", "warn-2"),
+                written.stream().map(ILoggingEvent::getFormattedMessage).toList());
+        // The MDC is captured on the calling thread, not read later on the writer thread
+        assertEquals("req-1", written.get(0).getMDCPropertyMap().get(CorrelationIdFilter.MDC_KEY));
+    }
+}
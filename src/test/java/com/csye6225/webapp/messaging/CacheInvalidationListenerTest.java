@@ -0,0 +1,131 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.security.CredentialCache;
+import com.csye6225.webapp.service.UserCache;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CacheInvalidationListenerTest {
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private CredentialCache credentialCache;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Mock
+    private DataSourceProperties dataSourceProperties;
+
+    // Each element is what one getNotifications poll returns; Boolean.FALSE drops the connection
+    private final BlockingQueue<Object> polls = new LinkedBlockingQueue<>();
+
+    private CacheInvalidationListener listener;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        when(dataSourceProperties.determineUrl()).thenReturn("jdbc:postgresql://localhost/test");
+        listener = new CacheInvalidationListener(userCache, credentialCache, statsDClient, dataSourceProperties, true) {
+            @Override
+            protected Connection openConnection() throws SQLException {
+                return fakeConnection();
+            }
+        };
+        ReflectionTestUtils.setField(listener, "pollMillis", 20);
+        ReflectionTestUtils.setField(listener, "reconnectMinMillis", 10L);
+        ReflectionTestUtils.setField(listener, "reconnectMaxMillis", 10L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        listener.stop();
+    }
+
+    @Test
+    void testNotificationEvictsBothCaches() {
+        polls.add(new PGNotification[]{notification("a@example.com")});
+
+        listener.start();
+
+        verify(userCache, timeout(2000)).evict("a@example.com");
+        verify(credentialCache, timeout(2000)).invalidate("a@example.com");
+        // Cleared once on connect, before the first notification
+        verify(userCache).evictAll();
+        verify(credentialCache).invalidateAll();
+    }
+
+    @Test
+    void testReconnectClearsCachesAndResumes() {
+        polls.add(new PGNotification[]{notification("a@example.com")});
+        polls.add(Boolean.FALSE);
+        polls.add(new PGNotification[]{notification("b@example.com")});
+
+        listener.start();
+
+        verify(userCache, timeout(2000)).evict("b@example.com");
+        verify(userCache, times(2)).evictAll();
+        verify(credentialCache, times(2)).invalidateAll();
+        verify(statsDClient).incrementCounter("cache.invalidation.reconnect");
+    }
+
+    @Test
+    void testDisabledForNonPostgresUrl() {
+        when(dataSourceProperties.determineUrl()).thenReturn("jdbc:h2:mem:test");
+        CacheInvalidationListener h2Listener =
+                new CacheInvalidationListener(userCache, credentialCache, statsDClient, dataSourceProperties, true);
+
+        h2Listener.start();
+
+        assertFalse(h2Listener.isListening());
+        verify(userCache, times(0)).evictAll();
+    }
+
+    private Connection fakeConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(pgConnection.getNotifications(anyInt())).thenAnswer(invocation -> {
+            Object next = polls.poll(20, TimeUnit.MILLISECONDS);
+            if (next == Boolean.FALSE) {
+                throw new SQLException("connection reset");
+            }
+            return next == null ? new PGNotification[0] : next;
+        });
+        return connection;
+    }
+
+    private static PGNotification notification(String email) {
+        PGNotification notification = mock(PGNotification.class);
+        when(notification.getName()).thenReturn(CacheInvalidationPublisher.CHANNEL);
+        when(notification.getParameter()).thenReturn(email);
+        return notification;
+    }
+}
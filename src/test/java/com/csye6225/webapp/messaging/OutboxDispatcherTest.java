@@ -0,0 +1,138 @@
+package com.csye6225.webapp.messaging;
+
+import com.csye6225.webapp.model.OutboxMessage;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class OutboxDispatcherTest {
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private InMemoryMessagePublisher messagePublisher;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        messagePublisher = new InMemoryMessagePublisher();
+    }
+
+    private OutboxMessage message(long id) {
+        OutboxMessage message = new OutboxMessage("{\"email\": \"test" + id + "@example.com\"}");
+        message.setId(id);
+        return message;
+    }
+
+    @Test
+    void testDispatch_publishesAndDeletes() {
+        OutboxMessage message = message(1L);
+        when(outboxMessageRepository.lockDueMessages(Mockito.any(), Mockito.anyInt()))
+                .thenReturn(List.of(message));
+        when(outboxMessageRepository.lockLeased(Mockito.eq(List.of(1L)), Mockito.any())).thenReturn(List.of(message));
+
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxMessageRepository, messagePublisher,
+                new TransactionTemplate(transactionManager), statsDClient);
+        dispatcher.dispatch();
+
+        assertEquals(List.of(message.getPayload()), messagePublisher.getPublished());
+        verify(outboxMessageRepository).delete(message);
+    }
+
+    @Test
+    void testDispatch_publishesBetweenClaimAndCompletion() {
+        OutboxMessage message = message(3L);
+        long claimedAt = System.currentTimeMillis();
+        when(outboxMessageRepository.lockDueMessages(Mockito.any(), Mockito.anyInt()))
+                .thenReturn(List.of(message))
+                .thenReturn(Collections.emptyList());
+        when(outboxMessageRepository.lockLeased(Mockito.eq(List.of(3L)), Mockito.any())).thenReturn(List.of(message));
+
+        MessagePublisher publisher = batch -> {
+            // The claim, lease included, is committed and no transaction is open during the call
+            verify(transactionManager, times(1)).getTransaction(Mockito.any());
+            verify(transactionManager, times(1)).commit(Mockito.any());
+            assertTrue(batch.get(0).getNextAttemptAt().getTime() >= claimedAt + 120000);
+            return Map.of();
+        };
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxMessageRepository, publisher,
+                new TransactionTemplate(transactionManager), statsDClient);
+        dispatcher.dispatchBatch(10);
+
+        verify(transactionManager, times(2)).commit(Mockito.any());
+        verify(outboxMessageRepository).delete(message);
+    }
+
+    @Test
+    void testDispatch_expiredLeaseLeftAlone() {
+        OutboxMessage message = message(4L);
+        when(outboxMessageRepository.lockDueMessages(Mockito.any(), Mockito.anyInt()))
+                .thenReturn(List.of(message))
+                .thenReturn(Collections.emptyList());
+        // Another instance re-claimed the row after the lease ran out
+        when(outboxMessageRepository.lockLeased(Mockito.any(), Mockito.any())).thenReturn(Collections.emptyList());
+
+        MessagePublisher failingPublisher = batch -> Map.of(4L, "Throttled");
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxMessageRepository, failingPublisher,
+                new TransactionTemplate(transactionManager), statsDClient);
+        dispatcher.dispatch();
+
+        verify(outboxMessageRepository, never()).delete(message);
+        verify(outboxMessageRepository, never()).save(message);
+        verify(statsDClient).count("messaging.outbox.lease_expired", 1);
+    }
+
+    @Test
+    void testDispatch_failureIsRescheduledWithBackoff() {
+        OutboxMessage message = message(2L);
+        long before = message.getNextAttemptAt().getTime();
+        when(outboxMessageRepository.lockDueMessages(Mockito.any(), Mockito.anyInt()))
+                .thenReturn(List.of(message))
+                .thenReturn(Collections.emptyList());
+        when(outboxMessageRepository.lockLeased(Mockito.eq(List.of(2L)), Mockito.any())).thenReturn(List.of(message));
+
+        MessagePublisher failingPublisher = batch -> Map.of(2L, "Throttled");
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxMessageRepository, failingPublisher,
+                new TransactionTemplate(transactionManager), statsDClient);
+        dispatcher.dispatch();
+
+        verify(outboxMessageRepository, never()).delete(message);
+        verify(outboxMessageRepository).save(message);
+        assertEquals(1, message.getAttempts());
+        assertEquals(OutboxMessage.STATUS_PENDING, message.getStatus());
+        assertTrue(message.getNextAttemptAt().getTime() > before);
+    }
+
+    @Test
+    void testBackoff_isCapped() {
+        OutboxDispatcher dispatcher = new OutboxDispatcher(outboxMessageRepository, messagePublisher,
+                new TransactionTemplate(transactionManager), statsDClient);
+
+        assertEquals(1000, dispatcher.backoffMillis(1));
+        assertEquals(4000, dispatcher.backoffMillis(3));
+        assertEquals(300000, dispatcher.backoffMillis(40));
+    }
+}
@@ -0,0 +1,65 @@
+package com.csye6225.webapp.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBucketBounds_containValue() {
+        long[] values = {0, 7, 8, 15, 16, 1000, 123456, 987654321L};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value);
+        }
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.count());
+        assertEquals(1_000_000, snapshot.maxNanos());
+        assertWithin(500_000, snapshot.p50Nanos());
+        assertWithin(950_000, snapshot.p95Nanos());
+        assertWithin(990_000, snapshot.p99Nanos());
+    }
+
+    @Test
+    void testSnapshotAndReset_coversOneInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5_000_000);
+        assertEquals(5_000_000, histogram.snapshotAndReset().maxNanos());
+
+        // The slow call from the first interval no longer shows up in the second
+        histogram.record(1000);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+        assertEquals(1, snapshot.count());
+        assertEquals(1000, snapshot.sumNanos());
+        assertEquals(1000, snapshot.maxNanos());
+        assertWithin(1000, snapshot.p99Nanos());
+
+        assertEquals(0, histogram.snapshot().count());
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.count());
+        assertEquals(0, snapshot.p99Nanos());
+    }
+
+    // Buckets are 1/8 of a power of two wide
+    private void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 8, "expected ~" + expected + " but was " + actual);
+    }
+}
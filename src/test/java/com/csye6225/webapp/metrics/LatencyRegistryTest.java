@@ -0,0 +1,48 @@
+package com.csye6225.webapp.metrics;
+
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class LatencyRegistryTest {
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private LatencyRegistry latencyRegistry;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        latencyRegistry = new LatencyRegistry(statsDClient);
+    }
+
+    @Test
+    void testExport_perIntervalPercentilesRunningTotals() {
+        latencyRegistry.record("api.user.getUserDetails", 8_000_000);
+        latencyRegistry.record("api.user.getUserDetails", 8_000_000);
+        latencyRegistry.exportToStatsD();
+
+        latencyRegistry.record("api.user.getUserDetails", 1_000_000);
+        latencyRegistry.exportToStatsD();
+
+        LatencyRegistry.Exported exported = latencyRegistry.exported().get("api.user.getUserDetails");
+        assertEquals(1, exported.interval().count());
+        assertEquals(1_000_000, exported.interval().maxNanos());
+        assertEquals(3, exported.totalCount());
+        assertEquals(17_000_000, exported.totalSumNanos());
+        verify(statsDClient).gauge("api.user.getUserDetails.time.max_us", 8000L);
+        verify(statsDClient).gauge("api.user.getUserDetails.time.max_us", 1000L);
+
+        // An idle interval reports nothing new but keeps the totals
+        latencyRegistry.exportToStatsD();
+        exported = latencyRegistry.exported().get("api.user.getUserDetails");
+        assertEquals(0, exported.interval().count());
+        assertEquals(3, exported.totalCount());
+    }
+}
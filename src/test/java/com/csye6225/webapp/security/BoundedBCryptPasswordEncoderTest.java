@@ -0,0 +1,82 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.exception.PasswordHashingRejectedException;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class BoundedBCryptPasswordEncoderTest {
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private LatencyRegistry latencyRegistry;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private BoundedBCryptPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        latencyRegistry = new LatencyRegistry(statsDClient);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+        passwordEncoder = new BoundedBCryptPasswordEncoder(executor, latencyRegistry, statsDClient, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testEncodeAndMatches_onPool() throws Exception {
+        String hash = passwordEncoder.encode("password123");
+
+        assertTrue(passwordEncoder.matches("password123", hash));
+        assertFalse(passwordEncoder.matches("wrongPassword", hash));
+        assertEquals(1, latencyRegistry.snapshots().get("password_hash.encode").count());
+        assertEquals(2, latencyRegistry.snapshots().get("password_hash.matches").count());
+        assertEquals(3, latencyRegistry.snapshots().get("password_hash.queue_wait").count());
+
+        // A hash requested from a pool task runs inline instead of waiting on the busy pool
+        Future<String> nested = passwordEncoder.submit(() -> passwordEncoder.encode("password123"));
+        assertTrue(passwordEncoder.matches("password123", nested.get()));
+    }
+
+    @Test
+    void testFullPool_rejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        // One task on the pool thread, one in the queue
+        Future<Boolean> running = passwordEncoder.submit(() -> release.await(10, TimeUnit.SECONDS));
+        Future<Boolean> queued = passwordEncoder.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+        PasswordHashingRejectedException e = assertThrows(PasswordHashingRejectedException.class,
+                () -> passwordEncoder.encode("password123"));
+        assertEquals(2, e.getRetryAfterSeconds());
+        verify(statsDClient).incrementCounter("password_hash.rejected");
+
+        release.countDown();
+        running.get();
+        queued.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.csye6225.webapp.security;
+
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class CredentialCacheTest {
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private CredentialCache credentialCache;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        credentialCache = new CredentialCache(statsDClient, true, 300, 2);
+    }
+
+    @Test
+    void testVerifiedCredentials_hit() {
+        credentialCache.put("test@example.com", "password", "hash");
+
+        assertTrue(credentialCache.isVerified("test@example.com", "password", "hash"));
+        assertFalse(credentialCache.isVerified("test@example.com", "wrongPassword", "hash"));
+        assertFalse(credentialCache.isVerified("test@example.com", "password", "newHash"));
+    }
+
+    @Test
+    void testInvalidate() {
+        credentialCache.put("test@example.com", "password", "hash");
+        credentialCache.invalidate("test@example.com");
+
+        assertFalse(credentialCache.isVerified("test@example.com", "password", "hash"));
+    }
+
+    @Test
+    void testExpiredEntry_miss() {
+        credentialCache = new CredentialCache(statsDClient, true, -1, 2);
+        credentialCache.put("test@example.com", "password", "hash");
+
+        assertFalse(credentialCache.isVerified("test@example.com", "password", "hash"));
+    }
+
+    @Test
+    void testBoundedSize() {
+        credentialCache.put("a@example.com", "password", "hash");
+        credentialCache.put("b@example.com", "password", "hash");
+        credentialCache.put("c@example.com", "password", "hash");
+
+        assertEquals(2, credentialCache.size());
+        assertTrue(credentialCache.isVerified("c@example.com", "password", "hash"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.csye6225.webapp.security;
+
+import com.csye6225.webapp.config.PasswordHashingConfig;
+import com.csye6225.webapp.config.RateLimitConfig;
+import com.csye6225.webapp.controller.UserController;
+import com.csye6225.webapp.dto.BulkUserResponseDto;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.csye6225.webapp.service.UserCache;
+import com.csye6225.webapp.service.UserProvisioningService;
+import com.csye6225.webapp.service.UserService;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = UserController.class, properties = {
+        "user.bulk.enabled=true",
+        "user.bulk.provisioners=provisioner@example.com",
+        "rate-limit.auth-failure.burst=2"
+})
+@Import({SecurityConfig.class, CustomAuthenticationEntryPoint.class, CredentialCache.class,
+        PasswordHashingConfig.class, RateLimitConfig.class})
+class SecurityConfigTest {
+
+    private static final String PASSWORD = "password123";
+    private static final String BULK_BODY =
+            "[{\"email\":\"new@example.com\",\"firstName\":\"John\",\"lastName\":\"Doe\",\"password\":\"password123\"}]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserCache userCache;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private UserProvisioningService userProvisioningService;
+
+    @MockBean
+    private LatencyRegistry latencyRegistry;
+
+    @MockBean
+    private StatsDClient statsDClient;
+
+    @BeforeEach
+    void setUp() {
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(4));
+        when(userCache.get(Mockito.anyString())).thenAnswer(invocation -> new UserSnapshot(
+                invocation.getArgument(0).hashCode() & 0xffffL, invocation.getArgument(0), hash, true,
+                "John", "Doe", LocalDateTime.now(), LocalDateTime.now()));
+        when(userProvisioningService.createUsers(Mockito.any())).thenReturn(new BulkUserResponseDto(List.of()));
+    }
+
+    @Test
+    void testBulk_regularUserForbidden() throws Exception {
+        mockMvc.perform(post("/v1/user/bulk")
+                        .header(HttpHeaders.AUTHORIZATION, basic("user@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BULK_BODY))
+                .andExpect(status().isForbidden());
+
+        verify(userProvisioningService, never()).createUsers(Mockito.any());
+    }
+
+    @Test
+    void testBulk_anonymousUnauthorized() throws Exception {
+        mockMvc.perform(post("/v1/user/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BULK_BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void testBulk_provisionerAllowed() throws Exception {
+        mockMvc.perform(post("/v1/user/bulk")
+                        .header(HttpHeaders.AUTHORIZATION, basic("provisioner@example.com"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(BULK_BODY))
+                .andExpect(status().is2xxSuccessful());
+
+        verify(userProvisioningService).createUsers(Mockito.any());
+    }
+
+    @Test
+    void testFailedCredentials_throttledBeforeAuthentication() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/v1/user/bulk")
+                            .header(HttpHeaders.AUTHORIZATION, basic("user@example.com", "wrong"))
+                            .with(request -> remoteAddr(request, "10.0.0.9")))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Refused before the credentials are checked, correct or not
+        mockMvc.perform(post("/v1/user/bulk")
+                        .header(HttpHeaders.AUTHORIZATION, basic("provisioner@example.com"))
+                        .with(request -> remoteAddr(request, "10.0.0.9")))
+                .andExpect(status().isTooManyRequests());
+        verify(userCache, times(2)).get(Mockito.anyString());
+    }
+
+    private static MockHttpServletRequest remoteAddr(MockHttpServletRequest request, String address) {
+        request.setRemoteAddr(address);
+        return request;
+    }
+
+    private static String basic(String email) {
+        return basic(email, PASSWORD);
+    }
+
+    private static String basic(String email, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((email + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+}
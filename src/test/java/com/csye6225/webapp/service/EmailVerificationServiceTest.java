@@ -0,0 +1,70 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.SentEmail;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.SentEmailRepository;
+import com.csye6225.webapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class EmailVerificationServiceTest {
+
+    @InjectMocks
+    private EmailVerificationService emailVerificationService;
+
+    @Mock
+    private SentEmailRepository sentEmailRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        ReflectionTestUtils.setField(emailVerificationService, "tokenTtlSeconds", 120L);
+    }
+
+    @Test
+    void testVerifyEmail_lookupByTokenHash() {
+        SentEmail sentEmail = new SentEmail();
+        sentEmail.setEmail("test@example.com");
+        sentEmail.setToken("token");
+        sentEmail.setSentAt(new Timestamp(System.currentTimeMillis()));
+
+        User user = new User();
+        user.setEmail("test@example.com");
+
+        when(sentEmailRepository.findByTokenHash(SentEmail.hashToken("token"))).thenReturn(Optional.of(sentEmail));
+        when(userRepository.findByEmail("test@example.com")).thenReturn(user);
+
+        emailVerificationService.verifyEmail("token");
+
+        assertTrue(user.getEmailVerified());
+        assertEquals("VERIFIED", sentEmail.getStatus());
+        verify(userCache).invalidate("test@example.com");
+    }
+
+    @Test
+    void testVerifyEmail_unknownToken() {
+        when(sentEmailRepository.findByTokenHash(SentEmail.hashToken("missing"))).thenReturn(Optional.empty());
+        when(sentEmailRepository.findByTokenAndTokenHashIsNull("missing")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> emailVerificationService.verifyEmail("missing"));
+    }
+}
@@ -7,12 +7,15 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import com.csye6225.webapp.metrics.LatencyRegistry;
 import com.timgroup.statsd.StatsDClient;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.openMocks;
 
 class HealthCheckServiceTest {
@@ -26,6 +29,9 @@ class HealthCheckServiceTest {
     @Mock
     private StatsDClient statsDClient;
 
+    @Mock
+    private LatencyRegistry latencyRegistry;
+
     @BeforeEach
     void setUp() {
         openMocks(this);
@@ -40,6 +46,7 @@ class HealthCheckServiceTest {
         boolean isConnected = healthCheckService.isDatabaseConnected();
 
         assertTrue(isConnected);
+        verify(latencyRegistry).record(Mockito.eq("db.isDatabaseConnected"), Mockito.anyLong());
     }
 
     @Test
@@ -52,4 +59,29 @@ class HealthCheckServiceTest {
 
         assertFalse(isConnected);
     }
+
+    @Test
+    void testProbe_cachesStatus() {
+        doNothing().when(jdbcTemplate).execute(Mockito.anyString());
+
+        assertFalse(healthCheckService.isDatabaseUp());
+
+        healthCheckService.probe();
+
+        assertTrue(healthCheckService.isDatabaseUp());
+        assertTrue(healthCheckService.isReady());
+        verify(jdbcTemplate, times(1)).execute(Mockito.anyString());
+        // Recorded on the probe path too, where @Timed would never have fired
+        verify(latencyRegistry).record(Mockito.eq("db.isDatabaseConnected"), Mockito.anyLong());
+    }
+
+    @Test
+    void testProbe_failureMarksNotReady() {
+        doThrow(new RuntimeException("Connection failed")).when(jdbcTemplate).execute(Mockito.anyString());
+
+        healthCheckService.probe();
+
+        assertFalse(healthCheckService.isDatabaseUp());
+        assertFalse(healthCheckService.isReady());
+    }
 }
@@ -0,0 +1,152 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.InvalidImageException;
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class ProfilePicPipelineTest {
+
+    @InjectMocks
+    private ProfilePicPipeline pipeline;
+
+    @Mock
+    private S3UploadService s3UploadService;
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private LatencyRegistry latencyRegistry;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    private final ThreadPoolTaskExecutor processingExecutor = executor(1);
+    private final Map<String, byte[]> uploaded = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        openMocks(this);
+        ReflectionTestUtils.setField(pipeline, "imageProcessingExecutor", processingExecutor);
+        ReflectionTestUtils.setField(pipeline, "bucketName", "bucket");
+        doAnswer(invocation -> {
+            uploaded.put(invocation.getArgument(0), invocation.getArgument(1));
+            return CompletableFuture.completedFuture(null);
+        }).when(s3UploadService).upload(anyString(), any(byte[].class), anyString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        processingExecutor.shutdown();
+    }
+
+    @Test
+    void testStoresOriginalAndRenditions() throws Exception {
+        byte[] original = png(2000, 1000);
+
+        pipeline.store("profile-pictures/1/pic.png", original, "image/png");
+
+        assertArrayEquals(original, uploaded.get("profile-pictures/1/pic.png"));
+        assertSize(512, 256, uploaded.get("profile-pictures/1/medium/pic.png"));
+        assertSize(128, 64, uploaded.get("profile-pictures/1/thumbnail/pic.png"));
+        verify(latencyRegistry).record(eq("profile_pic.decode"), anyLong());
+        verify(latencyRegistry).record(eq("profile_pic.resize.thumbnail"), anyLong());
+    }
+
+    @Test
+    void testSmallImageIsNotUpscaled() throws Exception {
+        byte[] original = png(100, 50);
+
+        pipeline.store("profile-pictures/1/pic.png", original, "image/png");
+
+        // Already within both sizes, so the original bytes are stored under every key
+        assertArrayEquals(original, uploaded.get("profile-pictures/1/medium/pic.png"));
+        assertArrayEquals(original, uploaded.get("profile-pictures/1/thumbnail/pic.png"));
+    }
+
+    @Test
+    void testUndecodableImage_rejected() {
+        byte[] garbage = {1, 2, 3, 4};
+
+        assertThrows(InvalidImageException.class,
+                () -> pipeline.store("profile-pictures/1/pic.png", garbage, "image/png"));
+
+        // The original's PUT has settled by the time store throws; no rendition was started
+        assertEquals(1, uploaded.size());
+    }
+
+    @Test
+    void testDeleteRemovesEveryRendition() {
+        when(s3AsyncClient.deleteObject(any(DeleteObjectRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(DeleteObjectResponse.builder().build()));
+
+        pipeline.delete("profile-pictures/1/pic.png", true);
+
+        ArgumentCaptor<DeleteObjectRequest> captor = ArgumentCaptor.forClass(DeleteObjectRequest.class);
+        verify(s3AsyncClient, times(3)).deleteObject(captor.capture());
+        assertEquals(List.of("profile-pictures/1/pic.png", "profile-pictures/1/medium/pic.png", "profile-pictures/1/thumbnail/pic.png"),
+                captor.getAllValues().stream().map(DeleteObjectRequest::key).toList());
+    }
+
+    private static void assertSize(int width, int height, byte[] data) throws Exception {
+        assertNotNull(data);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static ThreadPoolTaskExecutor executor(int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+        return executor;
+    }
+}
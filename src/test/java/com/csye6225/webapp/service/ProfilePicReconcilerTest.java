@@ -0,0 +1,88 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.UserRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class ProfilePicReconcilerTest {
+
+    private static final String KEY = ProfilePicStore.KEY_PREFIX + "missing";
+
+    @InjectMocks
+    private ProfilePicReconciler profilePicReconciler;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ProfilePicStore profilePicStore;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        ReflectionTestUtils.setField(profilePicReconciler, "bucketName", "test-bucket");
+
+        User user = new User();
+        ReflectionTestUtils.setField(user, "id", 1L);
+        user.setEmail("user@example.com");
+        user.setProfilePicUrl(KEY);
+        user.setProfilePicRenditions(true);
+        when(userRepository.findByProfilePicUrlIsNotNullAndIdGreaterThanOrderByIdAsc(Mockito.eq(0L), Mockito.any()))
+                .thenReturn(new SliceImpl<>(List.of(user), PageRequest.of(0, 100), false));
+        when(s3AsyncClient.headObject(Mockito.any(HeadObjectRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().statusCode(404).build()));
+    }
+
+    @Test
+    void testReconcile_clearsDanglingReference() {
+        when(userRepository.clearProfilePic(Mockito.eq("user@example.com"), Mockito.eq(KEY), Mockito.any())).thenReturn(1);
+
+        profilePicReconciler.reconcile();
+
+        verify(userRepository, never()).save(Mockito.any());
+        verify(userCache).invalidate("user@example.com");
+        verify(profilePicStore).release(KEY, true);
+        verify(statsDClient).count("aws.s3.reconcile.cleared", 1);
+    }
+
+    @Test
+    void testReconcile_referenceChangedDuringCheck() {
+        // The user deleted or replaced the picture while the HEAD check ran
+        when(userRepository.clearProfilePic(Mockito.eq("user@example.com"), Mockito.eq(KEY), Mockito.any())).thenReturn(0);
+
+        profilePicReconciler.reconcile();
+
+        verify(userRepository, never()).save(Mockito.any());
+        verify(userCache, never()).invalidate(Mockito.anyString());
+        verify(profilePicStore, never()).release(Mockito.anyString(), Mockito.anyBoolean());
+        verify(statsDClient).count("aws.s3.reconcile.cleared", 0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.exception.ImageProcessingRejectedException;
+import com.csye6225.webapp.exception.InvalidImageException;
+import com.csye6225.webapp.model.ProfilePicObject;
+import com.csye6225.webapp.repository.ProfilePicObjectRepository;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class ProfilePicStoreTest {
+
+    // SHA-256 of "abc"
+    private static final String KEY =
+            ProfilePicStore.KEY_PREFIX + "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @InjectMocks
+    private ProfilePicStore profilePicStore;
+
+    @Mock
+    private ProfilePicObjectRepository profilePicObjectRepository;
+
+    @Mock
+    private ProfilePicPipeline profilePicPipeline;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        ReflectionTestUtils.setField(profilePicStore, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(profilePicStore, "maxBufferedUploads", 1);
+        profilePicStore.init();
+    }
+
+    private ProfilePicStore.HashedPicture picture() throws Exception {
+        return profilePicStore.read(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), 3);
+    }
+
+    private ProfilePicObject object(int refCount, boolean stored) {
+        ProfilePicObject object = new ProfilePicObject();
+        ReflectionTestUtils.setField(object, "objectKey", KEY);
+        object.setRefCount(refCount);
+        object.setStored(stored);
+        return object;
+    }
+
+    @Test
+    void testRead_contentAddressedKey() throws Exception {
+        assertEquals(KEY, picture().key());
+        assertNull(profilePicStore.read(new ByteArrayInputStream(new byte[2]), 3));
+    }
+
+    @Test
+    void testStore_bufferedUploadsBounded() throws Exception {
+        ProfilePicObject object = object(0, true);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+        // A second upload arriving while the first is still being stored finds no buffer free
+        Mockito.doAnswer(invocation -> {
+            assertThrows(ImageProcessingRejectedException.class, () -> profilePicStore.store(
+                    new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), 3, "image/png"));
+            return 1;
+        }).when(profilePicObjectRepository).insertIfAbsent(Mockito.eq(KEY), Mockito.any());
+
+        assertEquals(KEY, profilePicStore.store(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), 3, "image/png"));
+        verify(statsDClient).incrementCounter("profile_pic.upload.rejected");
+
+        // The permit is returned, also when the body turns out to be short
+        assertNull(profilePicStore.store(new ByteArrayInputStream(new byte[2]), 3, "image/png"));
+        assertEquals(KEY, profilePicStore.store(new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)), 3, "image/png"));
+    }
+
+    @Test
+    void testAcquire_newContentIsStored() throws Exception {
+        ProfilePicObject object = object(0, false);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+
+        profilePicStore.acquire(picture(), "image/png");
+
+        assertEquals(1, object.getRefCount());
+        verify(profilePicPipeline).store(Mockito.eq(KEY), Mockito.any(), Mockito.eq("image/png"));
+        verify(profilePicObjectRepository).markStored(KEY);
+        verify(statsDClient).incrementCounter("profile_pic.dedup.miss");
+    }
+
+    @Test
+    void testAcquire_knownContentSkipsUpload() throws Exception {
+        ProfilePicObject object = object(3, true);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+
+        profilePicStore.acquire(picture(), "image/png");
+
+        assertEquals(4, object.getRefCount());
+        verify(profilePicPipeline, never()).store(Mockito.any(), Mockito.any(), Mockito.any());
+        verify(statsDClient).incrementCounter("profile_pic.dedup.hit");
+    }
+
+    @Test
+    void testAcquire_failedUploadDropsReference() throws Exception {
+        ProfilePicObject object = object(0, false);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+        doThrow(new InvalidImageException("bad")).when(profilePicPipeline).store(Mockito.eq(KEY), Mockito.any(), Mockito.any());
+
+        assertThrows(InvalidImageException.class, () -> profilePicStore.acquire(picture(), "image/png"));
+
+        // It was the only reference, so whatever was stored is removed
+        verify(profilePicPipeline).delete(KEY, true);
+        verify(profilePicObjectRepository).delete(object);
+        verify(profilePicObjectRepository, never()).markStored(KEY);
+    }
+
+    @Test
+    void testRelease_sharedContentKept() {
+        ProfilePicObject object = object(2, true);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+
+        profilePicStore.release(KEY, true);
+
+        assertEquals(1, object.getRefCount());
+        verify(profilePicPipeline, never()).delete(Mockito.any(), Mockito.anyBoolean());
+    }
+
+    @Test
+    void testRelease_lastReferenceDeletesObjects() {
+        ProfilePicObject object = object(1, true);
+        when(profilePicObjectRepository.lockByKey(KEY)).thenReturn(object);
+
+        profilePicStore.release(KEY, true);
+
+        verify(profilePicPipeline).delete(KEY, true);
+        verify(profilePicObjectRepository).delete(object);
+    }
+
+    @Test
+    void testRelease_legacyKeyDeletedDirectly() {
+        profilePicStore.release("profile-pictures/1/pic.png", false);
+
+        verify(profilePicPipeline).delete("profile-pictures/1/pic.png", false);
+        verify(profilePicObjectRepository, never()).lockByKey(Mockito.any());
+    }
+}
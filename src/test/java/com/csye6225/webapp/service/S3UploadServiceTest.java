@@ -0,0 +1,93 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class S3UploadServiceTest {
+
+    @InjectMocks
+    private S3UploadService s3UploadService;
+
+    @Mock
+    private S3AsyncClient s3AsyncClient;
+
+    @Mock
+    private LatencyRegistry latencyRegistry;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        ReflectionTestUtils.setField(s3UploadService, "bucketName", "bucket");
+    }
+
+    @Test
+    void testUpload_putsWithContentLength() {
+        when(s3AsyncClient.putObject(Mockito.any(PutObjectRequest.class), Mockito.any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        s3UploadService.upload("key", new byte[100], "image/png").join();
+
+        ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient).putObject(captor.capture(), Mockito.any(AsyncRequestBody.class));
+        assertEquals("bucket", captor.getValue().bucket());
+        assertEquals(100L, captor.getValue().contentLength());
+        assertEquals("image/png", captor.getValue().contentType());
+        verify(statsDClient).count("aws.s3.upload.bytes", 100);
+        assertEquals(0, s3UploadService.getBytesInFlight());
+    }
+
+    @Test
+    void testUpload_returnsBeforeS3Answers() {
+        CompletableFuture<PutObjectResponse> pending = new CompletableFuture<>();
+        when(s3AsyncClient.putObject(Mockito.any(PutObjectRequest.class), Mockito.any(AsyncRequestBody.class)))
+                .thenReturn(pending);
+
+        CompletableFuture<Void> upload = s3UploadService.upload("key", new byte[100], "image/png");
+
+        assertFalse(upload.isDone());
+        assertEquals(100, s3UploadService.getBytesInFlight());
+        pending.complete(PutObjectResponse.builder().build());
+        assertTrue(upload.isDone());
+        assertEquals(0, s3UploadService.getBytesInFlight());
+    }
+
+    @Test
+    void testFailedUpload_propagatesAndReleasesBytes() {
+        when(s3AsyncClient.putObject(Mockito.any(PutObjectRequest.class), Mockito.any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().statusCode(500).build()));
+
+        CompletableFuture<Void> upload = s3UploadService.upload("key", new byte[100], "image/png");
+
+        CompletionException e = assertThrows(CompletionException.class, upload::join);
+        assertTrue(e.getCause() instanceof S3Exception);
+        verify(statsDClient, never()).count("aws.s3.upload.bytes", 100);
+        assertEquals(0, s3UploadService.getBytesInFlight());
+    }
+}
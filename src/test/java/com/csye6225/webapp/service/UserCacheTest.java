@@ -0,0 +1,111 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.messaging.CacheInvalidationPublisher;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.timgroup.statsd.StatsDClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class UserCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Mock
+    private CacheInvalidationPublisher invalidationPublisher;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        userCache = new UserCache(userRepository, statsDClient, invalidationPublisher, true, 60, 2);
+    }
+
+    private UserSnapshot user(String email, String firstName) {
+        LocalDateTime now = LocalDateTime.now();
+        return new UserSnapshot(1L, email, "hash", true, firstName, "Doe", now, now);
+    }
+
+    @Test
+    void testHitAndInvalidate() {
+        UserSnapshot user = user("test@example.com", "John");
+        when(userRepository.findSnapshotByEmail("test@example.com")).thenReturn(user);
+
+        assertSame(user, userCache.get("test@example.com"));
+        assertSame(user, userCache.get("test@example.com"));
+        verify(userRepository, times(1)).findSnapshotByEmail("test@example.com");
+        verify(statsDClient).incrementCounter("user.cache.hit");
+
+        userCache.invalidate("test@example.com");
+        userCache.get("test@example.com");
+        verify(userRepository, times(2)).findSnapshotByEmail("test@example.com");
+        verify(invalidationPublisher).publish("test@example.com");
+
+        userCache.exportStats();
+        // 1 hit out of 3 lookups
+        verify(statsDClient).gauge("user.cache.hit_ratio", 33L);
+    }
+
+    @Test
+    void testRemoteEvict_notRepublished() {
+        when(userRepository.findSnapshotByEmail("test@example.com")).thenReturn(user("test@example.com", "John"));
+        userCache.get("test@example.com");
+
+        userCache.evict("test@example.com");
+
+        assertEquals(0, userCache.size());
+        verify(invalidationPublisher, never()).publish("test@example.com");
+    }
+
+    @Test
+    void testUnknownEmail_notCached() {
+        assertNull(userCache.get("missing@example.com"));
+        assertNull(userCache.get("missing@example.com"));
+
+        verify(userRepository, times(2)).findSnapshotByEmail("missing@example.com");
+        assertEquals(0, userCache.size());
+    }
+
+    @Test
+    void testLoadOverlappingInvalidation_notCached() {
+        // An update commits and invalidates while the row is being read
+        doAnswer(invocation -> {
+            userCache.invalidate("test@example.com");
+            return user("test@example.com", "Old");
+        }).when(userRepository).findSnapshotByEmail("test@example.com");
+
+        assertEquals("Old", userCache.get("test@example.com").firstName());
+        assertEquals(0, userCache.size());
+    }
+
+    @Test
+    void testBoundedSize() {
+        when(userRepository.findSnapshotByEmail("a@example.com")).thenReturn(user("a@example.com", "A"));
+        when(userRepository.findSnapshotByEmail("b@example.com")).thenReturn(user("b@example.com", "B"));
+        when(userRepository.findSnapshotByEmail("c@example.com")).thenReturn(user("c@example.com", "C"));
+
+        userCache.get("a@example.com");
+        userCache.get("b@example.com");
+        userCache.get("c@example.com");
+
+        assertEquals(2, userCache.size());
+    }
+}
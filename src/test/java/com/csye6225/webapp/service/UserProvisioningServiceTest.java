@@ -0,0 +1,141 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.dto.BulkUserResponseDto;
+import com.csye6225.webapp.dto.BulkUserResultDto;
+import com.csye6225.webapp.dto.UserRequestDto;
+import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.security.BoundedBCryptPasswordEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.timgroup.statsd.StatsDClient;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.openMocks;
+
+class UserProvisioningServiceTest {
+
+    @InjectMocks
+    private UserProvisioningService userProvisioningService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private BoundedBCryptPasswordEncoder passwordEncoder;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StatsDClient statsDClient;
+
+    @Captor
+    private ArgumentCaptor<List<User>> users;
+
+    @BeforeEach
+    void setUp() {
+        openMocks(this);
+        // Pool tasks run inline on the test thread
+        when(passwordEncoder.getPoolSize()).thenReturn(2);
+        when(passwordEncoder.submit(Mockito.any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Callable<?>>getArgument(0).call()));
+        ReflectionTestUtils.setField(userProvisioningService, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(userProvisioningService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(userProvisioningService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+        when(passwordEncoder.encode(Mockito.anyString())).thenAnswer(invocation -> "hashed-" + invocation.getArgument(0));
+        when(userRepository.findExistingEmails(Mockito.any())).thenReturn(Set.of());
+    }
+
+    private UserRequestDto request(String email) {
+        UserRequestDto request = new UserRequestDto();
+        request.setEmail(email);
+        request.setFirstName("John");
+        request.setLastName("Doe");
+        request.setPassword("password123");
+        return request;
+    }
+
+    @Test
+    void testCreateUsers_perRowResults() {
+        UserRequestDto invalid = request("not-an-email");
+        when(userRepository.findExistingEmails(Mockito.any())).thenReturn(Set.of("existing@example.com"));
+
+        BulkUserResponseDto response = userProvisioningService.createUsers(List.of(
+                request("new@example.com"),
+                invalid,
+                request("new@example.com"),
+                request("existing@example.com")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getConflicts());
+        assertEquals(1, response.getInvalid());
+        List<String> statuses = response.getResults().stream().map(BulkUserResultDto::getStatus).toList();
+        assertEquals(List.of(BulkUserResultDto.STATUS_CREATED, BulkUserResultDto.STATUS_INVALID,
+                BulkUserResultDto.STATUS_CONFLICT, BulkUserResultDto.STATUS_CONFLICT), statuses);
+
+        // Only the row that will be inserted is hashed
+        verify(passwordEncoder, times(1)).encode("password123");
+        verify(userRepository).saveAll(users.capture());
+        assertEquals(1, users.getValue().size());
+        assertEquals("hashed-password123", users.getValue().get(0).getPassword());
+        verify(outboxMessageRepository).saveAll(Mockito.argThat(messages -> ((List<?>) messages).size() == 1));
+    }
+
+    @Test
+    void testCreateUsers_concurrentSignupRetried() {
+        when(userRepository.findExistingEmails(Mockito.any()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("a@example.com"));
+        when(userRepository.saveAll(Mockito.any()))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        BulkUserResponseDto response = userProvisioningService.createUsers(List.of(
+                request("a@example.com"), request("b@example.com")));
+
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getConflicts());
+        assertEquals(BulkUserResultDto.STATUS_CONFLICT, response.getResults().get(0).getStatus());
+        assertEquals(BulkUserResultDto.STATUS_CREATED, response.getResults().get(1).getStatus());
+    }
+
+    @Test
+    void testCreateUsers_hashesOnPartOfThePool() {
+        when(passwordEncoder.getPoolSize()).thenReturn(4);
+        List<UserRequestDto> requests = IntStream.range(0, 10).mapToObj(i -> request("user" + i + "@example.com")).toList();
+
+        BulkUserResponseDto response = userProvisioningService.createUsers(requests);
+
+        // Two of the four hashing threads share all ten rows
+        assertEquals(10, response.getCreated());
+        verify(passwordEncoder, times(2)).submit(Mockito.any());
+        verify(passwordEncoder, times(10)).encode("password123");
+    }
+}
@@ -1,24 +1,53 @@
 package com.csye6225.webapp.service;
 
+import com.csye6225.webapp.dto.UserPatchRequestDto;
 import com.csye6225.webapp.dto.UserRequestDto;
 import com.csye6225.webapp.dto.UserResponseDto;
 import com.csye6225.webapp.dto.UserUpdateRequestDto;
+import com.csye6225.webapp.model.OutboxMessage;
 import com.csye6225.webapp.model.User;
+import com.csye6225.webapp.repository.OutboxMessageRepository;
+import com.csye6225.webapp.repository.UserCredentialsView;
 import com.csye6225.webapp.repository.UserRepository;
+import com.csye6225.webapp.repository.UserSnapshot;
+import com.csye6225.webapp.security.AuthenticatedUser;
+import com.csye6225.webapp.security.CredentialCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.timgroup.statsd.StatsDClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
 
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
@@ -36,9 +65,25 @@ class UserServiceTest {
     @Mock
     private StatsDClient statsDClient;
 
+    @Mock
+    private CredentialCache credentialCache;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private ProfilePicStore profilePicStore;
+
     @BeforeEach
     void setUp() {
         openMocks(this);
+        ReflectionTestUtils.setField(userService, "objectMapper", new ObjectMapper());
 
         doNothing().when(statsDClient).incrementCounter(Mockito.anyString());
         doNothing().when(statsDClient).recordExecutionTime(Mockito.anyString(), Mockito.anyLong());
@@ -57,7 +102,7 @@ class UserServiceTest {
         when(passwordEncoder.encode(userRequestDto.getPassword())).thenReturn("hashedPassword");
 
         // Use an Answer to simulate the user being saved and the accountCreated/accountUpdated timestamps being set
-        when(userRepository.save(Mockito.any(User.class))).thenAnswer((Answer<User>) invocation -> {
+        when(userRepository.saveAndFlush(Mockito.any(User.class))).thenAnswer((Answer<User>) invocation -> {
             User user = invocation.getArgument(0);
             user.setAccountCreated(LocalDateTime.now());
             user.setAccountUpdated(LocalDateTime.now());
@@ -78,17 +123,33 @@ class UserServiceTest {
         assertEquals("John", responseDto.getFirstName());
     }
 
+    @Test
+    void testCreateUser_outboxPayloadEscaped() throws Exception {
+        UserRequestDto userRequestDto = new UserRequestDto();
+        userRequestDto.setEmail("\"john\\doe\"@example.com");
+        userRequestDto.setFirstName("John");
+        userRequestDto.setLastName("Doe");
+        userRequestDto.setPassword("password");
+        when(userRepository.saveAndFlush(Mockito.any(User.class))).thenAnswer((Answer<User>) invocation -> {
+            User user = invocation.getArgument(0);
+            user.setAccountCreated(LocalDateTime.now());
+            user.setAccountUpdated(LocalDateTime.now());
+            return user;
+        });
+
+        userService.createUser(userRequestDto);
+
+        ArgumentCaptor<OutboxMessage> message = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(outboxMessageRepository).save(message.capture());
+        assertEquals(userRequestDto.getEmail(), new ObjectMapper().readTree(message.getValue().getPayload()).get("email").asText());
+    }
+
     @Test
     void testGetUserByEmail() {
         String email = "test@example.com";
-        User user = new User();
-        user.setEmail(email);
-        user.setFirstName("John");
-        user.setLastName("Doe");
-        user.setAccountCreated(LocalDateTime.now());
-        user.setAccountUpdated(LocalDateTime.now());
+        UserSnapshot user = new UserSnapshot(1L, email, "hash", true, "John", "Doe", LocalDateTime.now(), LocalDateTime.now());
 
-        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(userCache.get(email)).thenReturn(user);
 
         UserResponseDto responseDto = userService.getUserByEmail(email);
 
@@ -99,6 +160,22 @@ class UserServiceTest {
         assertNotNull(responseDto.getAccountUpdated());
     }
 
+    @Test
+    void testGetUserDetails_fromUserCache() {
+        LocalDateTime now = LocalDateTime.now();
+        AuthenticatedUser principal = new AuthenticatedUser(
+                new UserCredentialsView(1L, "test@example.com", "hash", true, now));
+        when(userCache.get("test@example.com"))
+                .thenReturn(new UserSnapshot(1L, "test@example.com", "hash", true, "John", "Doe", now, now));
+
+        UserResponseDto responseDto = userService.getUserDetails(principal);
+
+        assertEquals("test@example.com", responseDto.getEmail());
+        assertEquals("John", responseDto.getFirstName());
+        // Never loads the managed entity (and its password hash) on the read path
+        verify(userRepository, never()).findByEmail(Mockito.anyString());
+    }
+
     @Test
     void testUpdateUser() {
         String email = "test@example.com";
@@ -107,22 +184,217 @@ class UserServiceTest {
         userUpdateRequestDto.setLastName("Doe");
         userUpdateRequestDto.setPassword("newPassword");
 
+        when(passwordEncoder.encode("newPassword")).thenReturn("hashedNewPassword");
+        when(userRepository.updateProfile(Mockito.eq(email), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(1);
+
+        userService.updateUser(email, userUpdateRequestDto);
+
+        // Single UPDATE statement; the entity is never loaded or merged
+        verify(userRepository).updateProfile(Mockito.eq(email), Mockito.eq("John"), Mockito.eq("Doe"),
+                Mockito.eq("hashedNewPassword"), Mockito.any());
+        verify(userRepository, never()).findByEmail(Mockito.anyString());
+        verify(userRepository, never()).save(Mockito.any());
+        verify(credentialCache).invalidate(email);
+        verify(userCache).invalidate(email);
+    }
+
+    @Test
+    void testPatchUser_namesOnly_skipsHashing() {
+        String email = "test@example.com";
+        UserPatchRequestDto patch = new UserPatchRequestDto();
+        patch.setFirstName("Jane");
+
+        when(userRepository.updateProfile(Mockito.eq(email), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(1);
+
+        LocalDateTime accountUpdated = userService.patchUser(email, patch);
+
+        assertNotNull(accountUpdated);
+        verify(userRepository).updateProfile(email, "Jane", null, null, accountUpdated);
+        verify(passwordEncoder, never()).encode(Mockito.any());
+        verify(credentialCache, never()).invalidate(Mockito.any());
+        // Names are cached too, so the user entry is dropped even without a password change
+        verify(userCache).invalidate(email);
+    }
+
+    @Test
+    void testPatchUser_password_hashesAndInvalidates() {
+        String email = "test@example.com";
+        UserPatchRequestDto patch = new UserPatchRequestDto();
+        patch.setPassword("newPassword");
+
+        when(passwordEncoder.encode("newPassword")).thenReturn("hashedNewPassword");
+        when(userRepository.updateProfile(Mockito.eq(email), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenReturn(1);
+
+        LocalDateTime accountUpdated = userService.patchUser(email, patch);
+
+        verify(userRepository).updateProfile(email, null, null, "hashedNewPassword", accountUpdated);
+        verify(credentialCache).invalidate(email);
+    }
+
+    @Test
+    void testGetProfilePic_presignedWithoutS3Lookup() throws Exception {
+        String email = "test@example.com";
         User user = new User();
         user.setEmail(email);
-        user.setFirstName("OldFirstName");
-        user.setLastName("OldLastName");
-        user.setAccountCreated(LocalDateTime.now());
-        user.setAccountUpdated(LocalDateTime.now());
+        user.setProfilePicUrl("profile-pictures/1/pic.png");
+        ReflectionTestUtils.setField(user, "id", 1L);
 
         when(userRepository.findByEmail(email)).thenReturn(user);
-        when(passwordEncoder.encode(userUpdateRequestDto.getPassword())).thenReturn("hashedNewPassword");
+        when(s3Presigner.presignGetObject(Mockito.any(GetObjectPresignRequest.class))).thenReturn(presigned());
 
-        userService.updateUser(email, userUpdateRequestDto);
+        ResponseEntity<?> response = userService.getProfilePic(email, ProfilePicSize.ORIGINAL, getRequest(null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(s3Presigner).presignGetObject(forKey("profile-pictures/1/pic.png"));
+    }
+
+    @Test
+    void testGetProfilePic_notModified() throws Exception {
+        String email = "test@example.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setProfilePicUrl("profile-pictures/1/pic.png");
+        ReflectionTestUtils.setField(user, "id", 1L);
+
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(s3Presigner.presignGetObject(Mockito.any(GetObjectPresignRequest.class))).thenReturn(presigned());
+
+        ServletWebRequest first = getRequest(null);
+        userService.getProfilePic(email, ProfilePicSize.ORIGINAL, first);
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        ResponseEntity<?> response = userService.getProfilePic(email, ProfilePicSize.ORIGINAL, getRequest(etag));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        // The 304 path never signs a new URL
+        verify(s3Presigner, times(1)).presignGetObject(Mockito.any(GetObjectPresignRequest.class));
+    }
+
+    @Test
+    void testGetProfilePic_selectsRendition() throws Exception {
+        String email = "test@example.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setProfilePicUrl("profile-pictures/1/pic.png");
+        ReflectionTestUtils.setField(user, "id", 1L);
+
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(s3Presigner.presignGetObject(Mockito.any(GetObjectPresignRequest.class))).thenReturn(presigned());
+
+        // Uploaded before renditions existed: every size falls back to the original
+        userService.getProfilePic(email, ProfilePicSize.THUMBNAIL, getRequest(null));
+        verify(s3Presigner).presignGetObject(forKey("profile-pictures/1/pic.png"));
+
+        user.setProfilePicRenditions(true);
+        userService.getProfilePic(email, ProfilePicSize.THUMBNAIL, getRequest(null));
+        verify(s3Presigner).presignGetObject(forKey("profile-pictures/1/thumbnail/pic.png"));
+    }
+
+    @Test
+    void testUploadProfilePic_contentAddressed() throws Exception {
+        String email = "test@example.com";
+        User user = new User();
+        user.setEmail(email);
+        ReflectionTestUtils.setField(user, "id", 1L);
+        byte[] picture = {1, 2, 3};
+
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(profilePicStore.store(Mockito.any(), Mockito.eq(3L), Mockito.eq("image/png")))
+                .thenReturn(ProfilePicStore.KEY_PREFIX + "abc");
+        when(userRepository.setProfilePicIfAbsent(Mockito.eq(email), Mockito.eq(ProfilePicStore.KEY_PREFIX + "abc"),
+                Mockito.any())).thenReturn(1);
+        when(s3Presigner.presignGetObject(Mockito.any(GetObjectPresignRequest.class))).thenReturn(presigned());
+
+        ResponseEntity<?> response = userService.uploadProfilePic(email, new ByteArrayInputStream(picture),
+                picture.length, "image/png", "pic.png");
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(profilePicStore, never()).release(Mockito.anyString(), Mockito.anyBoolean());
+        verify(userCache).invalidate(email);
+    }
+
+    @Test
+    void testUploadProfilePic_concurrentUploadReleasesReference() throws Exception {
+        String email = "test@example.com";
+        User user = new User();
+        user.setEmail(email);
+        ReflectionTestUtils.setField(user, "id", 1L);
+        byte[] picture = {1, 2, 3};
+
+        // Both requests saw no picture; the other one set its picture first
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(profilePicStore.store(Mockito.any(), Mockito.eq(3L), Mockito.eq("image/png")))
+                .thenReturn(ProfilePicStore.KEY_PREFIX + "abc");
+        when(userRepository.setProfilePicIfAbsent(Mockito.eq(email), Mockito.any(), Mockito.any())).thenReturn(0);
+
+        ResponseEntity<?> response = userService.uploadProfilePic(email, new ByteArrayInputStream(picture),
+                picture.length, "image/png", "pic.png");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(profilePicStore).release(ProfilePicStore.KEY_PREFIX + "abc", true);
+    }
+
+    @Test
+    void testDeleteProfilePic_concurrentDeleteReleasesOnce() {
+        String email = "test@example.com";
+        User user = new User();
+        user.setEmail(email);
+        user.setProfilePicUrl(ProfilePicStore.KEY_PREFIX + "abc");
+        user.setProfilePicRenditions(true);
+
+        when(userRepository.findByEmail(email)).thenReturn(user);
+        when(userRepository.clearProfilePic(Mockito.eq(email), Mockito.eq(ProfilePicStore.KEY_PREFIX + "abc"), Mockito.any()))
+                .thenReturn(1)
+                .thenReturn(0);
+
+        assertEquals(HttpStatus.NO_CONTENT, userService.deleteProfilePic(email).getStatusCode());
+        // The second request read the same picture but the first had already cleared it
+        assertEquals(HttpStatus.NOT_FOUND, userService.deleteProfilePic(email).getStatusCode());
+        verify(profilePicStore, times(1)).release(ProfilePicStore.KEY_PREFIX + "abc", true);
+    }
+
+    @Test
+    void testUserEtag_changesWithAccountUpdated() {
+        UserCredentialsView credentials = new UserCredentialsView(1L, "test@example.com", "hash", true,
+                LocalDateTime.of(2024, 1, 1, 0, 0));
+        String before = userService.userEtag(new AuthenticatedUser(credentials));
+
+        UserCredentialsView updated = new UserCredentialsView(1L, "test@example.com", "hash", true,
+                LocalDateTime.of(2024, 1, 1, 0, 0, 0, 1000));
+
+        String after = userService.userEtag(new AuthenticatedUser(updated));
+        assertNotEquals(before, after);
+        assertEquals(after, userService.userEtag(new AuthenticatedUser(updated)));
+    }
+
+    private ServletWebRequest getRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/user/self/pic");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private static GetObjectPresignRequest forKey(String key) {
+        return Mockito.argThat(request -> request.getObjectRequest().key().equals(key));
+    }
 
-        assertEquals("John", user.getFirstName());
-        assertEquals("Doe", user.getLastName());
-        assertEquals("hashedNewPassword", user.getPassword());
-        assertNotNull(user.getAccountCreated());
-        assertNotNull(user.getAccountUpdated());
+    private static PresignedGetObjectRequest presigned() {
+        return PresignedGetObjectRequest.builder()
+                .expiration(Instant.now().plusSeconds(300))
+                .isBrowserExecutable(true)
+                .signedHeaders(Map.of("host", List.of("bucket.s3.amazonaws.com")))
+                .httpRequest(SdkHttpRequest.builder()
+                        .method(SdkHttpMethod.GET)
+                        .protocol("https")
+                        .host("bucket.s3.amazonaws.com")
+                        .encodedPath("/pic")
+                        .putRawQueryParameter("X-Amz-Signature", "abc")
+                        .build())
+                .build();
     }
 }
@@ -0,0 +1,86 @@
+package com.csye6225.webapp.service;
+
+import com.csye6225.webapp.metrics.LatencyRegistry;
+import com.timgroup.statsd.NoOpStatsDClient;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares upload throughput on a Tomcat-sized platform thread pool against virtual threads
+ * while S3 answers slowly and each caller waits for its upload, as a request does.
+ * Run with: gradle benchmarkTest
+ */
+@Tag("benchmark")
+class VirtualThreadThroughputBenchmark {
+
+    private static final int REQUESTS = 4000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final long INJECTED_S3_LATENCY_MS = 50;
+
+    // S3 stand-in that only adds latency
+    private static class SlowS3 implements S3AsyncClient {
+        @Override
+        public CompletableFuture<PutObjectResponse> putObject(PutObjectRequest putObjectRequest, AsyncRequestBody requestBody) {
+            return CompletableFuture.supplyAsync(() -> PutObjectResponse.builder().build(),
+                    CompletableFuture.delayedExecutor(INJECTED_S3_LATENCY_MS, TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void compareThroughput() throws Exception {
+        S3UploadService s3UploadService = new S3UploadService();
+        ReflectionTestUtils.setField(s3UploadService, "s3AsyncClient", new SlowS3());
+        ReflectionTestUtils.setField(s3UploadService, "latencyRegistry", new LatencyRegistry(new NoOpStatsDClient()));
+        ReflectionTestUtils.setField(s3UploadService, "statsDClient", new NoOpStatsDClient());
+        ReflectionTestUtils.setField(s3UploadService, "bucketName", "bucket");
+
+        double platform = run(s3UploadService, Executors.newFixedThreadPool(TOMCAT_MAX_THREADS));
+        double virtual = run(s3UploadService, Executors.newVirtualThreadPerTaskExecutor());
+
+        System.out.printf("Injected S3 latency %d ms, %d uploads%n", INJECTED_S3_LATENCY_MS, REQUESTS);
+        System.out.printf("  platform threads (%d): %.0f uploads/s%n", TOMCAT_MAX_THREADS, platform);
+        System.out.printf("  virtual threads:        %.0f uploads/s%n", virtual);
+
+        assertTrue(virtual > platform);
+    }
+
+    private double run(S3UploadService s3UploadService, ExecutorService executor) throws Exception {
+        byte[] picture = new byte[1024];
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> futures = new ArrayList<>(REQUESTS);
+            for (int i = 0; i < REQUESTS; i++) {
+                String key = "profile-pictures/" + i + "/pic.png";
+                futures.add(executor.submit(() -> s3UploadService.upload(key, picture, "image/png").join()));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return REQUESTS / ((System.nanoTime() - start) / 1e9);
+    }
+}